@@ -0,0 +1,443 @@
+package com.craftinginterpreters.lox;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Expr and Stmt trees flattened into one int array. A node is a run of ints
+ * starting with its kind; children are referred to by the index their run
+ * starts at and are always written before their parent. Literal values and
+ * lexemes go into a deduplicated constant pool, and tokens are stored as
+ * (type, lexeme, line, offset) rather than as Token objects, so a node costs
+ * a handful of ints instead of an object graph.
+ *
+ * Layouts, after the kind:
+ *   BINARY, COMMA   left, right, token
+ *   UNARY           right, token
+ *   TERNARY         condition, left, right
+ *   GROUPING        expression
+ *   LITERAL         constant
+ *   VARIABLE        symbol, token
+ *   EXPRESSION      expression
+ *   PRINT           expression
+ *   VAR             symbol, initializer (or -1), token
+ *
+ * write and read move an arena to and from bytes: the statement and node
+ * arrays as big-endian ints, then the constants, each a tag byte and its
+ * value. Symbol ids are only meaningful within one process, so read interns
+ * the names again and patches them in.
+ */
+class AstArena {
+    static final int BINARY = 1;
+    static final int COMMA = 2;
+    static final int UNARY = 3;
+    static final int TERNARY = 4;
+    static final int GROUPING = 5;
+    static final int LITERAL = 6;
+    static final int VARIABLE = 7;
+    static final int EXPRESSION = 8;
+    static final int PRINT = 9;
+    static final int VAR = 10;
+
+    private static final TokenType[] types = TokenType.values();
+
+    // Constant tags in the written form.
+    private static final int NIL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int NUMBER = 3;
+    private static final int TEXT = 4;
+
+    private int[] nodes = new int[256];
+    private int size = 0;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIds = new HashMap<>();
+    private int[] statements = new int[16];
+    private int statementCount = 0;
+
+    static AstArena of(List<Stmt> statements) {
+        AstArena arena = new AstArena();
+        Encoder encoder = arena.new Encoder();
+        for (Stmt statement : statements) {
+            arena.addStatement(statement == null ? -1 : statement.accept(encoder));
+        }
+        return arena;
+    }
+
+    // Top-level statements, in order. A statement the parser gave up on is
+    // kept as -1 so positions line up with the list it came from.
+    int statementCount() {
+        return statementCount;
+    }
+
+    int statement(int index) {
+        return statements[index];
+    }
+
+    List<Stmt> toStatements() {
+        List<Stmt> result = new ArrayList<>(statementCount);
+        for (int i = 0; i < statementCount; i++) {
+            result.add(statements[i] < 0 ? null : stmt(statements[i]));
+        }
+        return result;
+    }
+
+    // Ints used by the node array, for sizing comparisons.
+    int size() {
+        return size;
+    }
+
+    int kind(int node) {
+        return nodes[node];
+    }
+
+    int left(int node) {
+        return nodes[node] == TERNARY ? nodes[node + 2] : nodes[node + 1];
+    }
+
+    int right(int node) {
+        return switch (nodes[node]) {
+            case UNARY -> nodes[node + 1];
+            case TERNARY -> nodes[node + 3];
+            default -> nodes[node + 2];
+        };
+    }
+
+    int condition(int node) {
+        return nodes[node + 1];
+    }
+
+    // The single child of a grouping, expression statement or print.
+    int expression(int node) {
+        return nodes[node + 1];
+    }
+
+    Object value(int node) {
+        return constants.get(nodes[node + 1]);
+    }
+
+    int symbol(int node) {
+        return nodes[node + 1];
+    }
+
+    int initializer(int node) {
+        return nodes[node + 2];
+    }
+
+    TokenType operatorType(int node) {
+        return types[nodes[tokenAt(node)]];
+    }
+
+    // The operator of a binary, comma or unary node, or the name of a
+    // variable or var statement, rebuilt as a Token.
+    Token token(int node) {
+        int at = tokenAt(node);
+        TokenType type = types[nodes[at]];
+        String lexeme = (String) constants.get(nodes[at + 1]);
+        boolean name = type == TokenType.IDENTIFIER;
+        return new Token(type, lexeme, name ? lexeme : null, nodes[at + 2], nodes[at + 3],
+                name ? nodes[node + 1] : -1);
+    }
+
+    private int tokenAt(int node) {
+        return switch (nodes[node]) {
+            case BINARY, COMMA, VAR -> node + 3;
+            default -> node + 2;
+        };
+    }
+
+    // Visits a node by index; implementations read its fields back through
+    // the arena's accessors and recurse with accept.
+    interface Visitor<R> {
+        R visitBinary(AstArena arena, int node);
+        R visitComma(AstArena arena, int node);
+        R visitUnary(AstArena arena, int node);
+        R visitTernary(AstArena arena, int node);
+        R visitGrouping(AstArena arena, int node);
+        R visitLiteral(AstArena arena, int node);
+        R visitVariable(AstArena arena, int node);
+        R visitExpression(AstArena arena, int node);
+        R visitPrint(AstArena arena, int node);
+        R visitVar(AstArena arena, int node);
+    }
+
+    <R> R accept(int node, Visitor<R> visitor) {
+        return switch (nodes[node]) {
+            case BINARY -> visitor.visitBinary(this, node);
+            case COMMA -> visitor.visitComma(this, node);
+            case UNARY -> visitor.visitUnary(this, node);
+            case TERNARY -> visitor.visitTernary(this, node);
+            case GROUPING -> visitor.visitGrouping(this, node);
+            case LITERAL -> visitor.visitLiteral(this, node);
+            case VARIABLE -> visitor.visitVariable(this, node);
+            case EXPRESSION -> visitor.visitExpression(this, node);
+            case PRINT -> visitor.visitPrint(this, node);
+            case VAR -> visitor.visitVar(this, node);
+            default -> throw new IllegalStateException("Bad node kind " + nodes[node] + " at " + node);
+        };
+    }
+
+    Expr expr(int node) {
+        return switch (nodes[node]) {
+            case BINARY -> new Expr.Binary(expr(left(node)), token(node), expr(right(node)));
+            case COMMA -> new Expr.Comma(expr(left(node)), token(node), expr(right(node)));
+            case UNARY -> new Expr.Unary(token(node), expr(right(node)));
+            case TERNARY -> new Expr.Ternary(expr(condition(node)), expr(left(node)), expr(right(node)));
+            case GROUPING -> new Expr.Grouping(expr(expression(node)));
+            case LITERAL -> new Expr.Literal(value(node));
+            case VARIABLE -> new Expr.Variable(token(node), symbol(node));
+            default -> throw new IllegalStateException("Not an expression at " + node);
+        };
+    }
+
+    Stmt stmt(int node) {
+        return switch (nodes[node]) {
+            case EXPRESSION -> new Stmt.Expression(expr(expression(node)));
+            case PRINT -> new Stmt.Print(expr(expression(node)));
+            case VAR -> new Stmt.Var(token(node), symbol(node),
+                    initializer(node) < 0 ? null : expr(initializer(node)));
+            default -> throw new IllegalStateException("Not a statement at " + node);
+        };
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(statementCount);
+        for (int i = 0; i < statementCount; i++) {
+            out.writeInt(statements[i]);
+        }
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(nodes[i]);
+        }
+        out.writeInt(constants.size());
+        for (Object constant : constants) {
+            if (constant == null) {
+                out.writeByte(NIL);
+            } else if (constant instanceof Boolean bool) {
+                out.writeByte(bool ? TRUE : FALSE);
+            } else if (constant instanceof Double number) {
+                out.writeByte(NUMBER);
+                out.writeDouble(number);
+            } else {
+                byte[] text = ((String) constant).getBytes(StandardCharsets.UTF_8);
+                out.writeByte(TEXT);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+    }
+
+    // Reads what write wrote, from the buffer's position. A truncated or
+    // garbled buffer fails with a RuntimeException. Every child must start a
+    // node written before its parent, as the Encoder writes them, so a bad
+    // index can't make a cycle that rebuilding the tree recurses around
+    // until the stack overflows.
+    static AstArena read(ByteBuffer in) {
+        AstArena arena = new AstArena();
+        arena.statementCount = in.getInt();
+        arena.statements = new int[Math.max(arena.statementCount, 1)];
+        in.asIntBuffer().get(arena.statements, 0, arena.statementCount);
+        in.position(in.position() + 4 * arena.statementCount);
+        arena.size = in.getInt();
+        arena.nodes = new int[Math.max(arena.size, 1)];
+        in.asIntBuffer().get(arena.nodes, 0, arena.size);
+        in.position(in.position() + 4 * arena.size);
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            int tag = in.get();
+            arena.constants.add(switch (tag) {
+                case NIL -> null;
+                case FALSE -> false;
+                case TRUE -> true;
+                case NUMBER -> in.getDouble();
+                case TEXT -> {
+                    byte[] text = new byte[in.getInt()];
+                    in.get(text);
+                    yield new String(text, StandardCharsets.UTF_8);
+                }
+                default -> throw new IllegalStateException("Bad constant tag " + tag);
+            });
+        }
+        boolean[] starts = new boolean[arena.size];
+        for (int node = 0; node < arena.size; node += width(arena.nodes[node])) {
+            int kind = arena.nodes[node];
+            if (node + width(kind) > arena.size) {
+                throw new IllegalStateException("Node at " + node + " runs past the end");
+            }
+            starts[node] = true;
+            switch (kind) {
+                case BINARY, COMMA -> {
+                    checkChild(arena.nodes[node + 1], node, starts);
+                    checkChild(arena.nodes[node + 2], node, starts);
+                }
+                case TERNARY -> {
+                    checkChild(arena.nodes[node + 1], node, starts);
+                    checkChild(arena.nodes[node + 2], node, starts);
+                    checkChild(arena.nodes[node + 3], node, starts);
+                }
+                case UNARY, GROUPING, EXPRESSION, PRINT -> checkChild(arena.nodes[node + 1], node, starts);
+                case VAR -> {
+                    if (arena.nodes[node + 2] != -1) {
+                        checkChild(arena.nodes[node + 2], node, starts);
+                    }
+                }
+                default -> {
+                }
+            }
+            if (kind == VARIABLE || kind == VAR) {
+                String name = (String) arena.constants.get(arena.nodes[arena.tokenAt(node) + 1]);
+                arena.nodes[node + 1] = SymbolTable.names.intern(name);
+            }
+        }
+        for (int i = 0; i < arena.statementCount; i++) {
+            int statement = arena.statements[i];
+            if (statement != -1) {
+                checkChild(statement, arena.size, starts);
+            }
+        }
+        return arena;
+    }
+
+    private static void checkChild(int child, int parent, boolean[] starts) {
+        if (child < 0 || child >= parent || !starts[child]) {
+            throw new IllegalStateException("Bad child " + child + " of node " + parent);
+        }
+    }
+
+    // Ints taken by a node of the given kind, matching the Encoder.
+    private static int width(int kind) {
+        return switch (kind) {
+            case BINARY, COMMA, VAR -> 7;
+            case UNARY, VARIABLE -> 6;
+            case TERNARY -> 4;
+            case GROUPING, LITERAL, EXPRESSION, PRINT -> 2;
+            default -> throw new IllegalStateException("Bad node kind " + kind);
+        };
+    }
+
+    private void addStatement(int node) {
+        if (statementCount == statements.length) {
+            statements = Arrays.copyOf(statements, statementCount * 2);
+        }
+        statements[statementCount++] = node;
+    }
+
+    private int node(int kind, int width) {
+        if (size + width > nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, size + width));
+        }
+        int node = size;
+        nodes[node] = kind;
+        size += width;
+        return node;
+    }
+
+    private int constant(Object value) {
+        Integer id = constantIds.get(value);
+        if (id == null) {
+            id = constants.size();
+            constants.add(value);
+            constantIds.put(value, id);
+        }
+        return id;
+    }
+
+    private void putToken(int at, Token token) {
+        nodes[at] = token.type.ordinal();
+        nodes[at + 1] = constant(token.lexeme);
+        nodes[at + 2] = token.line;
+        nodes[at + 3] = token.offset;
+    }
+
+    private class Encoder implements Expr.Visitor<Integer>, Stmt.Visitor<Integer> {
+        @Override
+        public Integer visitBinaryExpr(Expr.Binary expr) {
+            return pair(BINARY, expr.left.accept(this), expr.right.accept(this), expr.operator);
+        }
+
+        @Override
+        public Integer visitCommaExpr(Expr.Comma expr) {
+            return pair(COMMA, expr.left.accept(this), expr.right.accept(this), expr.comma);
+        }
+
+        @Override
+        public Integer visitUnaryExpr(Expr.Unary expr) {
+            int right = expr.right.accept(this);
+            int node = node(UNARY, 6);
+            nodes[node + 1] = right;
+            putToken(node + 2, expr.operator);
+            return node;
+        }
+
+        @Override
+        public Integer visitTernaryExpr(Expr.Ternary expr) {
+            int condition = expr.condition.accept(this);
+            int left = expr.left.accept(this);
+            int right = expr.right.accept(this);
+            int node = node(TERNARY, 4);
+            nodes[node + 1] = condition;
+            nodes[node + 2] = left;
+            nodes[node + 3] = right;
+            return node;
+        }
+
+        @Override
+        public Integer visitGroupingExpr(Expr.Grouping expr) {
+            return single(GROUPING, expr.expression.accept(this));
+        }
+
+        @Override
+        public Integer visitLiteralExpr(Expr.Literal expr) {
+            return single(LITERAL, constant(expr.value));
+        }
+
+        @Override
+        public Integer visitVariableExpr(Expr.Variable expr) {
+            int node = node(VARIABLE, 6);
+            nodes[node + 1] = expr.symbol;
+            putToken(node + 2, expr.name);
+            return node;
+        }
+
+        @Override
+        public Integer visitExpressionStmt(Stmt.Expression stmt) {
+            return single(EXPRESSION, stmt.expression.accept(this));
+        }
+
+        @Override
+        public Integer visitPrintStmt(Stmt.Print stmt) {
+            return single(PRINT, stmt.expression.accept(this));
+        }
+
+        @Override
+        public Integer visitVarStmt(Stmt.Var stmt) {
+            int initializer = stmt.initializer == null ? -1 : stmt.initializer.accept(this);
+            int node = node(VAR, 7);
+            nodes[node + 1] = stmt.symbol;
+            nodes[node + 2] = initializer;
+            putToken(node + 3, stmt.name);
+            return node;
+        }
+
+        private int pair(int kind, int left, int right, Token token) {
+            int node = node(kind, 7);
+            nodes[node + 1] = left;
+            nodes[node + 2] = right;
+            putToken(node + 3, token);
+            return node;
+        }
+
+        private int single(int kind, int operand) {
+            int node = node(kind, 2);
+            nodes[node + 1] = operand;
+            return node;
+        }
+    }
+}
@@ -32,6 +32,11 @@ public class AstPrinter implements Expr.Visitor<String> {
     public String visitUnaryExpr(Expr.Unary expr){
         return parenthesize(expr.operator.lexeme,expr.right); 
     }
+
+    @Override
+    public String visitVariableExpr(Expr.Variable expr){
+        return expr.name.lexeme;
+    }
     
     @Override
     public String visitCommaExpr(Expr.Comma expr){
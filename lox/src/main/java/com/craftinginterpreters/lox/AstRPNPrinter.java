@@ -33,6 +33,11 @@ public class AstRPNPrinter implements Expr.Visitor<String> {
         return parenthesize(expr.operator.lexeme,expr.right); 
     }
 
+    @Override
+    public String visitVariableExpr(Expr.Variable expr){
+        return expr.name.lexeme;
+    }
+
     @Override
     public String visitCommaExpr(Expr.Comma expr){
         return parenthesize("comma",expr.right);
@@ -0,0 +1,72 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Times each way of running a script against the others:
+ *
+ *   java -cp target/classes com.craftinginterpreters.lox.Benchmark script [runs]
+ *
+ * The script is scanned, parsed and folded once. Every engine gets its own
+ * form of it (records, bytecode, register code or closures) built before its
+ * clock starts, so only running it is timed, not converting or compiling.
+ * Each engine is warmed up for as many runs as it is timed for, and output
+ * is thrown away while it runs.
+ */
+public class Benchmark {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: benchmark <script> [runs]");
+            System.exit(64);
+        }
+        int runs = args.length == 2 ? Integer.parseInt(args[1]) : 20;
+        String text = Files.readString(Paths.get(args[0]), Charset.defaultCharset());
+        List<Stmt> statements = new Parser(new Scanner(text).scanTokens()).parse();
+        if (Lox.hadError) System.exit(65);
+        statements = new ConstantFolder().fold(statements);
+
+        Interpreter interpreter = new Interpreter();
+        List<StmtNode> nodes = statements.stream().map(StmtNode::of).toList();
+        StackVM vm = new StackVM();
+        Chunk chunk = BytecodeCompiler.compile(statements);
+        RegisterVM registerVM = new RegisterVM();
+        RegisterCode code = RegisterCompiler.compile(statements);
+        ClosureCompiler closures = new ClosureCompiler();
+        ClosureCompiler.Action program = closures.compile(statements);
+
+        List<Stmt> folded = statements;
+        Map<String, Runnable> engines = new LinkedHashMap<>();
+        engines.put("tree", () -> interpreter.interpret(folded));
+        engines.put("records", () -> interpreter.interpretNodes(nodes));
+        engines.put("vm", () -> vm.run(chunk));
+        engines.put("register", () -> registerVM.run(code));
+        engines.put("closure", () -> closures.run(program));
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (Map.Entry<String, Runnable> engine : engines.entrySet()) {
+                for (int i = 0; i < runs; i++) {
+                    engine.getValue().run();
+                }
+                if (Lox.hadRuntimeError) System.exit(70);
+                long start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    engine.getValue().run();
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / runs;
+                out.printf("%-8s %10.3f ms/run%n", engine.getKey(), millis);
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+/*
+ * Compiles statements to a Chunk for StackVM. Code is emitted in the order
+ * the Interpreter evaluates, so side effects and the first error raised are
+ * the same on both backends. Like the recursive parser and interpreter it
+ * recurses on the tree.
+ */
+class BytecodeCompiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private final Chunk chunk = new Chunk();
+    private int depth = 0;
+
+    static Chunk compile(List<Stmt> statements) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        for (Stmt statement : statements) {
+            statement.accept(compiler);
+        }
+        return compiler.finish();
+    }
+
+    static Chunk compile(Stmt statement) {
+        return compile(List.of(statement));
+    }
+
+    private Chunk finish() {
+        chunk.write(Chunk.RETURN);
+        return chunk;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        stmt.expression.accept(this);
+        emit(Chunk.POP, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        stmt.expression.accept(this);
+        emit(Chunk.PRINT, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer != null) {
+            stmt.initializer.accept(this);
+        } else {
+            emit(Chunk.NIL, 1);
+        }
+        emit(Chunk.DEFINE, -1);
+        chunk.writeOperand(stmt.symbol);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        if (expr.value == null) {
+            emit(Chunk.NIL, 1);
+        } else if (expr.value instanceof Boolean bool) {
+            emit(bool ? Chunk.TRUE : Chunk.FALSE, 1);
+        } else {
+            emit(Chunk.CONSTANT, 1);
+            chunk.writeOperand(chunk.constant(expr.value));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        chunk.site(expr.name);
+        emit(Chunk.GET, 1);
+        chunk.writeOperand(expr.symbol);
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        expr.expression.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitCommaExpr(Expr.Comma expr) {
+        expr.right.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        expr.right.accept(this);
+        switch (expr.operator.type) {
+            case MINUS -> {
+                chunk.site(expr.operator);
+                emit(Chunk.NEGATE, 0);
+            }
+            case BANG -> emit(Chunk.NOT, 0);
+            default -> throw new IllegalStateException("Unexpected unary operator " + expr.operator.type);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        expr.left.accept(this);
+        expr.right.accept(this);
+        byte op = switch (expr.operator.type) {
+            case PLUS -> Chunk.ADD;
+            case MINUS -> Chunk.SUBTRACT;
+            case STAR -> Chunk.MULTIPLY;
+            case SLASH -> Chunk.DIVIDE;
+            case EQUAL_EQUAL -> Chunk.EQUAL;
+            case BANG_EQUAL -> Chunk.NOT_EQUAL;
+            case GREATER -> Chunk.GREATER;
+            case GREATER_EQUAL -> Chunk.GREATER_EQUAL;
+            case LESS -> Chunk.LESS;
+            case LESS_EQUAL -> Chunk.LESS_EQUAL;
+            default -> throw new IllegalStateException("Unexpected binary operator " + expr.operator.type);
+        };
+        chunk.site(expr.operator);
+        emit(op, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitTernaryExpr(Expr.Ternary expr) {
+        expr.condition.accept(this);
+        emit(Chunk.JUMP_IF_FALSE, -1);
+        int elseJump = jumpOperand();
+        expr.left.accept(this);
+        emit(Chunk.JUMP, 0);
+        int endJump = jumpOperand();
+        // Only one branch runs, so the else branch starts from the same depth.
+        depth--;
+        patch(elseJump);
+        expr.right.accept(this);
+        patch(endJump);
+        return null;
+    }
+
+    private void emit(byte op, int stackEffect) {
+        chunk.write(op);
+        depth += stackEffect;
+        chunk.maxStack = Math.max(chunk.maxStack, depth);
+    }
+
+    private int jumpOperand() {
+        int offset = chunk.count;
+        chunk.writeOperand(0);
+        return offset;
+    }
+
+    // Point the jump whose operand is at offset to the next instruction.
+    private void patch(int offset) {
+        chunk.patchOperand(offset, chunk.count - (offset + 3));
+    }
+}
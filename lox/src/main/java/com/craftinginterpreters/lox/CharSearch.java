@@ -0,0 +1,75 @@
+package com.craftinginterpreters.lox;
+
+/*
+ * Bulk searches the scanner uses to get through comments, string bodies and
+ * runs of blanks without going through advance() for every character. When
+ * the build includes VectorCharSearch (mvn -Pvector) and the JVM was started
+ * with --add-modules jdk.incubator.vector, the searches compare a whole
+ * vector of characters at a time; otherwise they fall back to a plain loop.
+ * VectorCharSearch is only loaded when the module is there, and by name, so
+ * this class compiles and runs without it.
+ */
+class CharSearch {
+    interface Kernel {
+        int indexOf(char[] chars, int from, int to, char a, char b);
+
+        int skipBlanks(char[] chars, int from, int to);
+    }
+
+    // The vector searches, or null when they can't be used.
+    static final Kernel vector = loadVector();
+    static final boolean vectorized = vector != null && !Boolean.getBoolean("lox.scalarScan");
+
+    // Shorter ranges aren't worth setting up a vector for.
+    private static final int MIN_VECTOR_LENGTH = 32;
+
+    // Index of the first a or b in chars[from, to), or to if there is none.
+    static int indexOf(char[] chars, int from, int to, char a, char b) {
+        if (vectorized && to - from >= MIN_VECTOR_LENGTH) {
+            return vector.indexOf(chars, from, to, a, b);
+        }
+        return scalarIndexOf(chars, from, to, a, b);
+    }
+
+    // Index of the first character in chars[from, to) that is not a space
+    // or tab, or to if there is none.
+    static int skipBlanks(char[] chars, int from, int to) {
+        if (vectorized && to - from >= MIN_VECTOR_LENGTH) {
+            return vector.skipBlanks(chars, from, to);
+        }
+        return scalarSkipBlanks(chars, from, to);
+    }
+
+    static int scalarIndexOf(char[] chars, int from, int to, char a, char b) {
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c == a || c == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    static int scalarSkipBlanks(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c != ' ' && c != '\t') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static Kernel loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (Kernel) Class.forName("com.craftinginterpreters.lox.VectorCharSearch")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError error) {
+            // Built without -Pvector.
+            return null;
+        }
+    }
+}
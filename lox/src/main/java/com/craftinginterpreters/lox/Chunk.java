@@ -0,0 +1,107 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/*
+ * Bytecode for a list of statements, written by BytecodeCompiler and run by
+ * StackVM. An instruction is an opcode byte followed by its operands, each
+ * three bytes big-endian: an index into the constant pool, a symbol id, or
+ * a forward jump distance counted from the end of the instruction.
+ *
+ * Tokens are kept out of the code, in the line table of CompiledCode.
+ */
+class Chunk extends CompiledCode {
+    static final byte CONSTANT = 0;      // index       -> value
+    static final byte NIL = 1;           //             -> nil
+    static final byte TRUE = 2;          //             -> true
+    static final byte FALSE = 3;         //             -> false
+    static final byte POP = 4;           // value       ->
+    static final byte GET = 5;           // symbol      -> value
+    static final byte DEFINE = 6;        // symbol, value ->
+    static final byte PRINT = 7;         // value       ->
+    static final byte NEGATE = 8;        // value       -> -value
+    static final byte NOT = 9;           // value       -> !value
+    static final byte ADD = 10;          // a, b        -> a + b
+    static final byte SUBTRACT = 11;
+    static final byte MULTIPLY = 12;
+    static final byte DIVIDE = 13;
+    static final byte EQUAL = 14;
+    static final byte NOT_EQUAL = 15;
+    static final byte GREATER = 16;
+    static final byte GREATER_EQUAL = 17;
+    static final byte LESS = 18;
+    static final byte LESS_EQUAL = 19;
+    static final byte JUMP = 20;         // distance
+    static final byte JUMP_IF_FALSE = 21; // distance, condition ->
+    static final byte RETURN = 22;
+
+    private static final String[] names = {
+        "CONSTANT", "NIL", "TRUE", "FALSE", "POP", "GET", "DEFINE", "PRINT", "NEGATE", "NOT",
+        "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "EQUAL", "NOT_EQUAL", "GREATER", "GREATER_EQUAL",
+        "LESS", "LESS_EQUAL", "JUMP", "JUMP_IF_FALSE", "RETURN"
+    };
+
+    // Operand count of each opcode.
+    private static final int[] operands = {
+        1, 0, 0, 0, 0, 1, 1, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 1, 1, 0
+    };
+
+    byte[] code = new byte[64];
+    // Deepest the value stack gets, worked out by the compiler.
+    int maxStack = 0;
+
+    void write(byte op) {
+        ensure(1);
+        code[count++] = op;
+    }
+
+    void writeOperand(int operand) {
+        if (operand < 0 || operand > 0xffffff) {
+            throw new IllegalStateException("Operand out of range: " + operand);
+        }
+        ensure(3);
+        code[count++] = (byte) (operand >>> 16);
+        code[count++] = (byte) (operand >>> 8);
+        code[count++] = (byte) operand;
+    }
+
+    // Overwrite the operand at offset, for jumps written before their target.
+    void patchOperand(int offset, int operand) {
+        code[offset] = (byte) (operand >>> 16);
+        code[offset + 1] = (byte) (operand >>> 8);
+        code[offset + 2] = (byte) operand;
+    }
+
+    static int operand(byte[] code, int offset) {
+        return (code[offset] & 0xff) << 16 | (code[offset + 1] & 0xff) << 8 | code[offset + 2] & 0xff;
+    }
+
+    // One instruction per line, for tests and debugging.
+    String disassemble() {
+        StringBuilder text = new StringBuilder();
+        for (int offset = 0; offset < count; ) {
+            int op = code[offset];
+            text.append(String.format("%04d %s", offset, names[op]));
+            if (operands[op] > 0) {
+                int operand = operand(code, offset + 1);
+                text.append(' ');
+                switch (op) {
+                    case CONSTANT -> text.append(constants[operand]);
+                    case GET, DEFINE -> text.append(SymbolTable.names.name(operand));
+                    default -> text.append("-> ").append(String.format("%04d", offset + 4 + operand));
+                }
+            }
+            text.append('\n');
+            offset += 1 + 3 * operands[op];
+        }
+        return text.toString();
+    }
+
+    private void ensure(int bytes) {
+        if (count + bytes > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, count + bytes));
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Compiles statements once into trees of small lambdas, each holding its
+ * already compiled children, so running them involves no visitor dispatch
+ * and no switch on the operator: that choice is made here, once per node.
+ *
+ * An expression that can only ever produce a number (a number literal, -,
+ * * and /, and + or a ternary over such expressions) becomes a NumberNode,
+ * which parents that also want a number read with evalDouble, unboxed. The
+ * other nodes work on boxed values.
+ *
+ * Compiled statements run against this compiler's globals. Like the
+ * recursive interpreter, compiling and running recurse on the tree.
+ */
+class ClosureCompiler implements Expr.Visitor<ClosureCompiler.Node>, Stmt.Visitor<ClosureCompiler.Action> {
+    interface Node {
+        Object eval(Environment env);
+    }
+
+    interface NumberNode extends Node {
+        double evalDouble(Environment env);
+
+        @Override
+        default Object eval(Environment env) {
+            return evalDouble(env);
+        }
+    }
+
+    interface Action {
+        void run(Environment env);
+    }
+
+    private final Environment environment = new Environment();
+    private final Interpreter operators = new Interpreter();
+
+    Action compile(List<Stmt> statements) {
+        Action[] actions = new Action[statements.size()];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = statements.get(i).accept(this);
+        }
+        return env -> {
+            for (Action action : actions) {
+                action.run(env);
+            }
+        };
+    }
+
+    Action compile(Stmt statement) {
+        return statement.accept(this);
+    }
+
+    boolean run(Action program) {
+        return Lox.runReported(() -> program.run(environment));
+    }
+
+    @Override
+    public Action visitExpressionStmt(Stmt.Expression stmt) {
+        Node expression = stmt.expression.accept(this);
+        return env -> expression.eval(env);
+    }
+
+    @Override
+    public Action visitPrintStmt(Stmt.Print stmt) {
+        Node expression = stmt.expression.accept(this);
+        return env -> System.out.println(operators.stringify(expression.eval(env)));
+    }
+
+    @Override
+    public Action visitVarStmt(Stmt.Var stmt) {
+        int symbol = stmt.symbol;
+        if (stmt.initializer == null) return env -> env.define(symbol, null);
+        Node initializer = stmt.initializer.accept(this);
+        return env -> env.define(symbol, initializer.eval(env));
+    }
+
+    @Override
+    public Node visitLiteralExpr(Expr.Literal expr) {
+        Object value = expr.value;
+        if (value instanceof Double number) {
+            double constant = number;
+            return (NumberNode) env -> constant;
+        }
+        return env -> value;
+    }
+
+    @Override
+    public Node visitVariableExpr(Expr.Variable expr) {
+        Token name = expr.name;
+        int symbol = expr.symbol;
+        return env -> {
+            Object value = env.find(symbol);
+            return value != Environment.UNDEFINED ? value : env.get(name, symbol);
+        };
+    }
+
+    @Override
+    public Node visitGroupingExpr(Expr.Grouping expr) {
+        return expr.expression.accept(this);
+    }
+
+    @Override
+    public Node visitCommaExpr(Expr.Comma expr) {
+        return expr.right.accept(this);
+    }
+
+    @Override
+    public Node visitUnaryExpr(Expr.Unary expr) {
+        Token operator = expr.operator;
+        Node right = expr.right.accept(this);
+        switch (operator.type) {
+            case MINUS -> {
+                if (right instanceof NumberNode number) {
+                    return (NumberNode) env -> -number.evalDouble(env);
+                }
+                return (NumberNode) env -> {
+                    Object value = right.eval(env);
+                    if (value instanceof Double number) return -number;
+                    return (Double) operators.unary(operator, value);
+                };
+            }
+            case BANG -> {
+                return env -> !operators.isTruthy(right.eval(env));
+            }
+            default -> throw new IllegalStateException("Unexpected unary operator " + operator.type);
+        }
+    }
+
+    @Override
+    public Node visitTernaryExpr(Expr.Ternary expr) {
+        Node condition = expr.condition.accept(this);
+        Node left = expr.left.accept(this);
+        Node right = expr.right.accept(this);
+        if (left instanceof NumberNode thenNumber && right instanceof NumberNode elseNumber) {
+            return (NumberNode) env -> operators.isTruthy(condition.eval(env))
+                    ? thenNumber.evalDouble(env) : elseNumber.evalDouble(env);
+        }
+        return env -> operators.isTruthy(condition.eval(env)) ? left.eval(env) : right.eval(env);
+    }
+
+    @Override
+    public Node visitBinaryExpr(Expr.Binary expr) {
+        Token operator = expr.operator;
+        Node left = expr.left.accept(this);
+        Node right = expr.right.accept(this);
+        switch (operator.type) {
+            case EQUAL_EQUAL -> {
+                return env -> Objects.equals(left.eval(env), right.eval(env));
+            }
+            case BANG_EQUAL -> {
+                return env -> !Objects.equals(left.eval(env), right.eval(env));
+            }
+        }
+        if (left instanceof NumberNode x && right instanceof NumberNode y) {
+            return switch (operator.type) {
+                case PLUS -> (NumberNode) env -> x.evalDouble(env) + y.evalDouble(env);
+                case MINUS -> (NumberNode) env -> x.evalDouble(env) - y.evalDouble(env);
+                case STAR -> (NumberNode) env -> x.evalDouble(env) * y.evalDouble(env);
+                case SLASH -> (NumberNode) env -> {
+                    double dividend = x.evalDouble(env);
+                    double divisor = y.evalDouble(env);
+                    // Same test as the Interpreter's right.equals(0.0).
+                    if (Double.doubleToLongBits(divisor) == 0L) throw new RuntimeError(operator, "division by zero");
+                    return dividend / divisor;
+                };
+                case GREATER -> env -> x.evalDouble(env) > y.evalDouble(env);
+                case GREATER_EQUAL -> env -> x.evalDouble(env) >= y.evalDouble(env);
+                case LESS -> env -> x.evalDouble(env) < y.evalDouble(env);
+                case LESS_EQUAL -> env -> x.evalDouble(env) <= y.evalDouble(env);
+                default -> throw new IllegalStateException("Unexpected binary operator " + operator.type);
+            };
+        }
+        // An operand of unknown type: numbers are still done here, anything
+        // else goes to the boxed operators, which also raise the errors.
+        return switch (operator.type) {
+            case PLUS -> env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q) return p + q;
+                return operators.binary(operator, a, b);
+            };
+            case MINUS -> (NumberNode) env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q) return p - q;
+                return (Double) operators.binary(operator, a, b);
+            };
+            case STAR -> (NumberNode) env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q) return p * q;
+                return (Double) operators.binary(operator, a, b);
+            };
+            case SLASH -> (NumberNode) env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q && Double.doubleToLongBits(q) != 0L) return p / q;
+                return (Double) operators.binary(operator, a, b);
+            };
+            case GREATER -> env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q) return p > q;
+                return operators.binary(operator, a, b);
+            };
+            case GREATER_EQUAL -> env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q) return p >= q;
+                return operators.binary(operator, a, b);
+            };
+            case LESS -> env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q) return p < q;
+                return operators.binary(operator, a, b);
+            };
+            case LESS_EQUAL -> env -> {
+                Object a = left.eval(env);
+                Object b = right.eval(env);
+                if (a instanceof Double p && b instanceof Double q) return p <= q;
+                return operators.binary(operator, a, b);
+            };
+            default -> throw new IllegalStateException("Unexpected binary operator " + operator.type);
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * What Chunk and RegisterCode keep beside their instructions: a constant
+ * pool, with each distinct value stored once, and a line table of (code
+ * offset, token) for the instructions that can fail. Offsets are written in
+ * increasing order, so the table is only binary-searched once an error
+ * needs its location.
+ */
+abstract class CompiledCode {
+    // Length of the code written so far, in the subclass's units.
+    int count = 0;
+    Object[] constants = new Object[16];
+    int constantCount = 0;
+
+    private final Map<Object, Integer> constantIds = new HashMap<>();
+    private int[] siteOffsets = new int[16];
+    private Token[] siteTokens = new Token[16];
+    private int siteCount = 0;
+
+    int constant(Object value) {
+        Integer id = constantIds.get(value);
+        if (id == null) {
+            if (constantCount == constants.length) {
+                constants = Arrays.copyOf(constants, constantCount * 2);
+            }
+            id = constantCount;
+            constants[constantCount++] = value;
+            constantIds.put(value, id);
+        }
+        return id;
+    }
+
+    // The instruction written next can fail, with token as its location.
+    void site(Token token) {
+        if (siteCount == siteOffsets.length) {
+            siteOffsets = Arrays.copyOf(siteOffsets, siteCount * 2);
+            siteTokens = Arrays.copyOf(siteTokens, siteCount * 2);
+        }
+        siteOffsets[siteCount] = count;
+        siteTokens[siteCount++] = token;
+    }
+
+    // Token of the instruction at offset.
+    Token token(int offset) {
+        int index = Arrays.binarySearch(siteOffsets, 0, siteCount, offset);
+        return index < 0 ? null : siteTokens[index];
+    }
+}
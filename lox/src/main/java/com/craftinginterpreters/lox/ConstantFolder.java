@@ -0,0 +1,121 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Rewrites statements so that operators whose operands are all literals are
+ * evaluated once, here, instead of every time the statement runs. Values are
+ * computed by the Interpreter's own binary and unary, so a folded literal is
+ * exactly what evaluation would have produced.
+ *
+ * An operation that fails, like 1 / 0 or -"s", is left in the tree with its
+ * operator token, so the same RuntimeError is still raised at the same point
+ * of the run. Groupings are dropped, a ternary with a literal condition is
+ * replaced by the branch it would take, and a comma by its right operand.
+ *
+ * Identities such as x * 1 or x + 0 are deliberately not applied: without
+ * knowing x is a number they would hide "Operand must be a number." or turn
+ * a string concatenation into a no-op.
+ */
+class ConstantFolder implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    private final Interpreter evaluator = new Interpreter();
+
+    // Statements the parser gave up on are kept as null, in place.
+    List<Stmt> fold(List<Stmt> statements) {
+        List<Stmt> result = new ArrayList<>(statements.size());
+        for (Stmt statement : statements) {
+            result.add(fold(statement));
+        }
+        return result;
+    }
+
+    Stmt fold(Stmt statement) {
+        return statement == null ? null : statement.accept(this);
+    }
+
+    Expr fold(Expr expr) {
+        return expr.accept(this);
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        Expr expression = fold(stmt.expression);
+        return expression == stmt.expression ? stmt : new Stmt.Expression(expression);
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        Expr expression = fold(stmt.expression);
+        return expression == stmt.expression ? stmt : new Stmt.Print(expression);
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer == null) return stmt;
+        Expr initializer = fold(stmt.initializer);
+        return initializer == stmt.initializer ? stmt : new Stmt.Var(stmt.name, stmt.symbol, initializer);
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = fold(expr.left);
+        Expr right = fold(expr.right);
+        if (left instanceof Expr.Literal l && right instanceof Expr.Literal r) {
+            try {
+                return new Expr.Literal(evaluator.binary(expr.operator, l.value, r.value));
+            } catch (RuntimeError error) {
+                // Raised when the statement runs instead.
+            }
+        }
+        if (left == expr.left && right == expr.right) return expr;
+        return new Expr.Binary(left, expr.operator, right);
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr right = fold(expr.right);
+        if (right instanceof Expr.Literal r) {
+            try {
+                return new Expr.Literal(evaluator.unary(expr.operator, r.value));
+            } catch (RuntimeError error) {
+                // Raised when the statement runs instead.
+            }
+        }
+        return right == expr.right ? expr : new Expr.Unary(expr.operator, right);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return fold(expr.expression);
+    }
+
+    // Interpreter.visitCommaExpr never evaluates the left operand, so neither
+    // its value nor any error it would raise can be observed.
+    @Override
+    public Expr visitCommaExpr(Expr.Comma expr) {
+        return fold(expr.right);
+    }
+
+    @Override
+    public Expr visitTernaryExpr(Expr.Ternary expr) {
+        Expr condition = fold(expr.condition);
+        if (condition instanceof Expr.Literal c) {
+            return fold(evaluator.isTruthy(c.value) ? expr.left : expr.right);
+        }
+        Expr left = fold(expr.left);
+        Expr right = fold(expr.right);
+        if (condition == expr.condition && left == expr.left && right == expr.right) return expr;
+        return new Expr.Ternary(condition, left, right);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return expr;
+    }
+}
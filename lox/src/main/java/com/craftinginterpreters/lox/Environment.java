@@ -0,0 +1,35 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/*
+ * Variables indexed by their SymbolTable.names id. A sentinel marks slots
+ * that were never defined, since nil is stored as null.
+ */
+class Environment {
+    static final Object UNDEFINED=new Object();
+
+    private Object[] values=new Object[0];
+
+    Object get(Token name,int symbol){
+        if(symbol<values.length && values[symbol]!=UNDEFINED){
+            return values[symbol];
+        }
+        throw new RuntimeError(name, "Undefined variable '"+name.lexeme+"'.");
+    }
+
+    // The value of symbol, or UNDEFINED, for callers that only look up the
+    // token for the error once they know there is one.
+    Object find(int symbol){
+        return symbol<values.length?values[symbol]:UNDEFINED;
+    }
+
+    void define(int symbol,Object value){
+        if(symbol>=values.length){
+            int length=values.length;
+            values=Arrays.copyOf(values, Math.max(symbol+1, length*2));
+            Arrays.fill(values, length, values.length, UNDEFINED);
+        }
+        values[symbol]=value;
+    }
+}
@@ -11,6 +11,24 @@ abstract class Expr{
 		R visitUnaryExpr(Unary expr);
 		R visitVariableExpr(Variable expr);
 		R visitTernaryExpr(Ternary expr);
+	}
+	 static interface DoubleVisitor{
+		double visitBinaryExpr(Binary expr);
+		double visitCommaExpr(Comma expr);
+		double visitGroupingExpr(Grouping expr);
+		double visitLiteralExpr(Literal expr);
+		double visitUnaryExpr(Unary expr);
+		double visitVariableExpr(Variable expr);
+		double visitTernaryExpr(Ternary expr);
+	}
+	 static interface BooleanVisitor{
+		boolean visitBinaryExpr(Binary expr);
+		boolean visitCommaExpr(Comma expr);
+		boolean visitGroupingExpr(Grouping expr);
+		boolean visitLiteralExpr(Literal expr);
+		boolean visitUnaryExpr(Unary expr);
+		boolean visitVariableExpr(Variable expr);
+		boolean visitTernaryExpr(Ternary expr);
 	}
 	static class Binary extends Expr {
 		Binary(Expr left,Token operator,Expr right) {
@@ -23,6 +41,16 @@ abstract class Expr{
 		<R> R accept(Visitor<R> visitor){
 			return visitor.visitBinaryExpr(this);
 		}
+
+		@Override
+		double accept(DoubleVisitor visitor){
+			return visitor.visitBinaryExpr(this);
+		}
+
+		@Override
+		boolean accept(BooleanVisitor visitor){
+			return visitor.visitBinaryExpr(this);
+		}
 		final Expr left;
 		final Token operator;
 		final Expr right;
@@ -39,6 +67,16 @@ abstract class Expr{
 		<R> R accept(Visitor<R> visitor){
 			return visitor.visitCommaExpr(this);
 		}
+
+		@Override
+		double accept(DoubleVisitor visitor){
+			return visitor.visitCommaExpr(this);
+		}
+
+		@Override
+		boolean accept(BooleanVisitor visitor){
+			return visitor.visitCommaExpr(this);
+		}
 		final Expr left;
 		final Token comma;
 		final Expr right;
@@ -53,6 +91,16 @@ abstract class Expr{
 		<R> R accept(Visitor<R> visitor){
 			return visitor.visitGroupingExpr(this);
 		}
+
+		@Override
+		double accept(DoubleVisitor visitor){
+			return visitor.visitGroupingExpr(this);
+		}
+
+		@Override
+		boolean accept(BooleanVisitor visitor){
+			return visitor.visitGroupingExpr(this);
+		}
 		final Expr expression;
 	}
 
@@ -65,6 +113,16 @@ abstract class Expr{
 		<R> R accept(Visitor<R> visitor){
 			return visitor.visitLiteralExpr(this);
 		}
+
+		@Override
+		double accept(DoubleVisitor visitor){
+			return visitor.visitLiteralExpr(this);
+		}
+
+		@Override
+		boolean accept(BooleanVisitor visitor){
+			return visitor.visitLiteralExpr(this);
+		}
 		final Object value;
 	}
 
@@ -78,20 +136,42 @@ abstract class Expr{
 		<R> R accept(Visitor<R> visitor){
 			return visitor.visitUnaryExpr(this);
 		}
+
+		@Override
+		double accept(DoubleVisitor visitor){
+			return visitor.visitUnaryExpr(this);
+		}
+
+		@Override
+		boolean accept(BooleanVisitor visitor){
+			return visitor.visitUnaryExpr(this);
+		}
 		final Token operator;
 		final Expr right;
 	}
 
 	static class Variable extends Expr {
-		Variable(Token name) {
+		Variable(Token name,int symbol) {
 			this.name = name;
+			this.symbol = symbol;
 		}
 
 		@Override
 		<R> R accept(Visitor<R> visitor){
 			return visitor.visitVariableExpr(this);
 		}
+
+		@Override
+		double accept(DoubleVisitor visitor){
+			return visitor.visitVariableExpr(this);
+		}
+
+		@Override
+		boolean accept(BooleanVisitor visitor){
+			return visitor.visitVariableExpr(this);
+		}
 		final Token name;
+		final int symbol;
 	}
 
 	static class Ternary extends Expr {
@@ -105,10 +185,22 @@ abstract class Expr{
 		<R> R accept(Visitor<R> visitor){
 			return visitor.visitTernaryExpr(this);
 		}
+
+		@Override
+		double accept(DoubleVisitor visitor){
+			return visitor.visitTernaryExpr(this);
+		}
+
+		@Override
+		boolean accept(BooleanVisitor visitor){
+			return visitor.visitTernaryExpr(this);
+		}
 		final Expr condition;
 		final Expr left;
 		final Expr right;
 	}
 
 	abstract <R> R accept(Visitor<R> visitor);
+	abstract double accept(DoubleVisitor visitor);
+	abstract boolean accept(BooleanVisitor visitor);
 }
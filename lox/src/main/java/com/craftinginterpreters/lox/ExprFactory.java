@@ -0,0 +1,160 @@
+package com.craftinginterpreters.lox;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+ * Where the Parser gets its Expr nodes from. The plain factory allocates a
+ * new node every time; sharing(memoize) hash-conses them instead.
+ *
+ * Only pure nodes are shared: literals, and operators whose operands are all
+ * pure and whose evaluation cannot fail. A pure node never reads a variable
+ * or raises a RuntimeError, so the operator token it keeps, taken from its
+ * first occurrence, is never looked at and any later occurrence can use it.
+ * Anything that might fail, like a variable or 1 / 0, is built fresh so its
+ * errors still point at their own line and column.
+ *
+ * A sharing factory lives as long as its Parser, which for a streamed script
+ * is the whole run, so it forgets everything once it holds MAX_NODES shared
+ * nodes. Nodes handed out before that stay valid; they just aren't shared
+ * with later ones.
+ */
+class ExprFactory {
+    static final ExprFactory plain = new ExprFactory();
+    static final int MAX_NODES = 1 << 16;
+
+    // With memoize, a pure operator is replaced by the shared literal of its
+    // value, computed once here, instead of being kept as a shared subtree.
+    static ExprFactory sharing(boolean memoize) {
+        return new Sharing(memoize);
+    }
+
+    Expr literal(Object value) {
+        return new Expr.Literal(value);
+    }
+
+    Expr variable(Token name, int symbol) {
+        return new Expr.Variable(name, symbol);
+    }
+
+    Expr grouping(Expr expression) {
+        return new Expr.Grouping(expression);
+    }
+
+    Expr unary(Token operator, Expr right) {
+        return new Expr.Unary(operator, right);
+    }
+
+    Expr binary(Expr left, Token operator, Expr right) {
+        return new Expr.Binary(left, operator, right);
+    }
+
+    Expr comma(Expr left, Token comma, Expr right) {
+        return new Expr.Comma(left, comma, right);
+    }
+
+    Expr ternary(Expr condition, Expr left, Expr right) {
+        return new Expr.Ternary(condition, left, right);
+    }
+
+    private static class Sharing extends ExprFactory {
+        // Children are shared already, so comparing them by identity is
+        // comparing them by structure.
+        private record Key(Class<?> kind, Object first, Object second, Object third) {}
+
+        private final boolean memoize;
+        private final Interpreter evaluator = new Interpreter();
+        private final Map<Key, Expr> nodes = new HashMap<>();
+        // Value of every pure node handed out.
+        private final Map<Expr, Object> values = new IdentityHashMap<>();
+
+        Sharing(boolean memoize) {
+            this.memoize = memoize;
+        }
+
+        @Override
+        Expr literal(Object value) {
+            Key key = new Key(Expr.Literal.class, value, null, null);
+            Expr node = nodes.get(key);
+            if (node == null) {
+                node = remember(key, new Expr.Literal(value), value);
+            }
+            return node;
+        }
+
+        @Override
+        Expr grouping(Expr expression) {
+            if (!values.containsKey(expression)) return super.grouping(expression);
+            return share(new Key(Expr.Grouping.class, expression, null, null), values.get(expression),
+                    () -> new Expr.Grouping(expression));
+        }
+
+        @Override
+        Expr unary(Token operator, Expr right) {
+            if (!values.containsKey(right)) return super.unary(operator, right);
+            Object value;
+            try {
+                value = evaluator.unary(operator, values.get(right));
+            } catch (RuntimeError error) {
+                return super.unary(operator, right);
+            }
+            return share(new Key(Expr.Unary.class, operator.type, right, null), value,
+                    () -> new Expr.Unary(operator, right));
+        }
+
+        @Override
+        Expr binary(Expr left, Token operator, Expr right) {
+            if (!values.containsKey(left) || !values.containsKey(right)) {
+                return super.binary(left, operator, right);
+            }
+            Object value;
+            try {
+                value = evaluator.binary(operator, values.get(left), values.get(right));
+            } catch (RuntimeError error) {
+                return super.binary(left, operator, right);
+            }
+            return share(new Key(Expr.Binary.class, operator.type, left, right), value,
+                    () -> new Expr.Binary(left, operator, right));
+        }
+
+        @Override
+        Expr comma(Expr left, Token comma, Expr right) {
+            if (!values.containsKey(left) || !values.containsKey(right)) {
+                return super.comma(left, comma, right);
+            }
+            return share(new Key(Expr.Comma.class, left, right, null), values.get(right),
+                    () -> new Expr.Comma(left, comma, right));
+        }
+
+        @Override
+        Expr ternary(Expr condition, Expr left, Expr right) {
+            if (!values.containsKey(condition) || !values.containsKey(left) || !values.containsKey(right)) {
+                return super.ternary(condition, left, right);
+            }
+            Object value = evaluator.isTruthy(values.get(condition)) ? values.get(left) : values.get(right);
+            return share(new Key(Expr.Ternary.class, condition, left, right), value,
+                    () -> new Expr.Ternary(condition, left, right));
+        }
+
+        private Expr share(Key key, Object value, Supplier<Expr> build) {
+            if (memoize) return literal(value);
+            Expr node = nodes.get(key);
+            if (node == null) {
+                node = remember(key, build.get(), value);
+            }
+            return node;
+        }
+
+        private Expr remember(Key key, Expr node, Object value) {
+            if (nodes.size() == MAX_NODES) {
+                nodes.clear();
+                values.clear();
+            }
+            nodes.put(key, node);
+            values.put(node, value);
+            return node;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.craftinginterpreters.lox;
+
+sealed interface ExprNode{
+	record Binary(ExprNode left,Token operator,ExprNode right) implements ExprNode {}
+	record Comma(ExprNode left,Token comma,ExprNode right) implements ExprNode {}
+	record Grouping(ExprNode expression) implements ExprNode {}
+	record Literal(Object value) implements ExprNode {}
+	record Unary(Token operator,ExprNode right) implements ExprNode {}
+	record Variable(Token name,int symbol) implements ExprNode {}
+	record Ternary(ExprNode condition,ExprNode left,ExprNode right) implements ExprNode {}
+
+	static ExprNode of(Expr node){
+		if(node==null) return null;
+		return node.accept(new Expr.Visitor<ExprNode>(){
+			@Override
+			public ExprNode visitBinaryExpr(Expr.Binary node){
+				return new Binary(ExprNode.of(node.left),node.operator,ExprNode.of(node.right));
+			}
+			@Override
+			public ExprNode visitCommaExpr(Expr.Comma node){
+				return new Comma(ExprNode.of(node.left),node.comma,ExprNode.of(node.right));
+			}
+			@Override
+			public ExprNode visitGroupingExpr(Expr.Grouping node){
+				return new Grouping(ExprNode.of(node.expression));
+			}
+			@Override
+			public ExprNode visitLiteralExpr(Expr.Literal node){
+				return new Literal(node.value);
+			}
+			@Override
+			public ExprNode visitUnaryExpr(Expr.Unary node){
+				return new Unary(node.operator,ExprNode.of(node.right));
+			}
+			@Override
+			public ExprNode visitVariableExpr(Expr.Variable node){
+				return new Variable(node.name,node.symbol);
+			}
+			@Override
+			public ExprNode visitTernaryExpr(Expr.Ternary node){
+				return new Ternary(ExprNode.of(node.condition),ExprNode.of(node.left),ExprNode.of(node.right));
+			}
+		});
+	}
+}
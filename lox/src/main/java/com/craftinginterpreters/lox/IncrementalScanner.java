@@ -0,0 +1,334 @@
+package com.craftinginterpreters.lox;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Keeps the tokens of an editor buffer up to date as it is edited. An edit
+ * re-lexes from the end of the last token it cannot have affected and stops
+ * as soon as a new token starts where an old one did (shifted by the edit):
+ * the scanner is in the same state there and the rest of the text is
+ * unchanged, so every old token from that point on still holds.
+ *
+ * The text and the tokens are both gap buffers, with the gap left at the
+ * last edit. The scanner reads the text in place, on either side of the gap.
+ * Tokens after the gap keep their offset and line relative to the end of the
+ * text, so an edit moves all of them at once without touching any. Moving a
+ * gap costs the distance between one edit and the next, so the work per edit
+ * depends on where and how much was edited, not on the size of the buffer.
+ */
+class IncrementalScanner {
+    // How far past its end a token's lexing can look (number() peeks two).
+    private static final int LOOKAHEAD = 2;
+    private static final int MIN_GAP = 64;
+
+    // The text is chars[0, gap) followed by chars[gapEnd, chars.length).
+    private char[] chars;
+    private int gap;
+    private int gapEnd;
+    // Lines in the text: one more than its newlines.
+    private int lineCount;
+
+    // Token i is at index i before tokenGap and at i + the gap's size after
+    // it. Offsets and lines before the gap are absolute; after it they are
+    // stored minus length() and lineCount.
+    private Token[] tokens;
+    private int[] offsets;
+    private int[] lines;
+    private int tokenGap;
+    private int tokenGapEnd;
+
+    IncrementalScanner(String source) {
+        chars = new char[source.length() + MIN_GAP];
+        source.getChars(0, source.length(), chars, 0);
+        gap = source.length();
+        gapEnd = chars.length;
+        lineCount = 1 + newlines(0, source.length());
+
+        List<Token> scanned = new Scanner(source).scanTokens();
+        tokens = new Token[scanned.size() + MIN_GAP];
+        offsets = new int[tokens.length];
+        lines = new int[tokens.length];
+        for (Token token : scanned) {
+            tokens[tokenGap] = token;
+            offsets[tokenGap] = token.offset;
+            lines[tokenGap] = token.line;
+            tokenGap++;
+        }
+        tokenGapEnd = tokens.length;
+    }
+
+    // The whole text, built on each call.
+    String source() {
+        StringBuilder text = new StringBuilder(length());
+        text.append(chars, 0, gap).append(chars, gapEnd, chars.length - gapEnd);
+        return text.toString();
+    }
+
+    int length() {
+        return chars.length - (gapEnd - gap);
+    }
+
+    int size() {
+        return tokens.length - (tokenGapEnd - tokenGap);
+    }
+
+    int offset(int index) {
+        int at = slot(index);
+        return at < tokenGap ? offsets[at] : offsets[at] + length();
+    }
+
+    int line(int index) {
+        int at = slot(index);
+        return at < tokenGap ? lines[at] : lines[at] + lineCount;
+    }
+
+    Token token(int index) {
+        Token token = tokens[slot(index)];
+        int offset = offset(index);
+        int line = line(index);
+        if (token.offset == offset && token.line == line) {
+            return token;
+        }
+        return new Token(token.type, token.lexeme, token.literal, line, offset, token.symbol);
+    }
+
+    // A read-only view with every token at its current position.
+    List<Token> tokens() {
+        return new AbstractList<Token>() {
+            @Override
+            public Token get(int index) {
+                return token(index);
+            }
+
+            @Override
+            public int size() {
+                return IncrementalScanner.this.size();
+            }
+        };
+    }
+
+    // Replace `removed` characters at `offset` with `inserted` and bring the
+    // tokens up to date. Returns the new token list.
+    List<Token> edit(int offset, int removed, String inserted) {
+        // First token the edit can reach; everything before it is kept, and
+        // everything from it on goes after the gap to be re-lexed or reused.
+        int first = firstAffected(offset);
+        moveTokenGap(first);
+        int restart = first == 0 ? 0 : offsets[first - 1] + tokens[first - 1].lexeme.length();
+        int line = first == 0 ? 1 : lines[first - 1];
+
+        moveGap(offset);
+        lineCount -= newlines(gapEnd, gapEnd + removed);
+        gapEnd += removed;
+        reserve(inserted.length());
+        inserted.getChars(0, inserted.length(), chars, gap);
+        gap += inserted.length();
+        lineCount += newlines(gap - inserted.length(), gap);
+        int editEnd = offset + inserted.length();
+
+        Scanner scanner = new Window(restart, line);
+        for (;;) {
+            Token token = scanner.nextToken();
+            if (token.offset >= editEnd) {
+                // Old tokens before it are gone; one starting right at it
+                // means the streams have synchronized.
+                while (offset(tokenGap) < token.offset) {
+                    tokens[tokenGapEnd++] = null;
+                }
+                if (offset(tokenGap) == token.offset) {
+                    break;
+                }
+            }
+            insert(token);
+        }
+        return tokens();
+    }
+
+    private int firstAffected(int offset) {
+        int low = 0;
+        int high = size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offset(mid) + tokens[slot(mid)].lexeme.length() + LOOKAHEAD > offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private int slot(int index) {
+        return index < tokenGap ? index : index + (tokenGapEnd - tokenGap);
+    }
+
+    private void insert(Token token) {
+        if (tokenGap == tokenGapEnd) {
+            int capacity = tokens.length * 2;
+            int tail = tokens.length - tokenGapEnd;
+            Token[] grownTokens = Arrays.copyOf(tokens, capacity);
+            int[] grownOffsets = Arrays.copyOf(offsets, capacity);
+            int[] grownLines = Arrays.copyOf(lines, capacity);
+            System.arraycopy(tokens, tokenGapEnd, grownTokens, capacity - tail, tail);
+            System.arraycopy(offsets, tokenGapEnd, grownOffsets, capacity - tail, tail);
+            System.arraycopy(lines, tokenGapEnd, grownLines, capacity - tail, tail);
+            Arrays.fill(grownTokens, tokenGapEnd, capacity - tail, null);
+            tokens = grownTokens;
+            offsets = grownOffsets;
+            lines = grownLines;
+            tokenGapEnd = capacity - tail;
+        }
+        tokens[tokenGap] = token;
+        offsets[tokenGap] = token.offset;
+        lines[tokenGap] = token.line;
+        tokenGap++;
+    }
+
+    // Move the token gap to just before token `index`, switching the tokens
+    // it passes between absolute and end-relative positions.
+    private void moveTokenGap(int index) {
+        int length = length();
+        while (tokenGap > index) {
+            tokenGap--;
+            tokenGapEnd--;
+            tokens[tokenGapEnd] = tokens[tokenGap];
+            offsets[tokenGapEnd] = offsets[tokenGap] - length;
+            lines[tokenGapEnd] = lines[tokenGap] - lineCount;
+            tokens[tokenGap] = null;
+        }
+        while (tokenGap < index) {
+            tokens[tokenGap] = tokens[tokenGapEnd];
+            offsets[tokenGap] = offsets[tokenGapEnd] + length;
+            lines[tokenGap] = lines[tokenGapEnd] + lineCount;
+            tokens[tokenGapEnd] = null;
+            tokenGap++;
+            tokenGapEnd++;
+        }
+    }
+
+    private void moveGap(int offset) {
+        if (offset < gap) {
+            int moved = gap - offset;
+            System.arraycopy(chars, offset, chars, gapEnd - moved, moved);
+            gap -= moved;
+            gapEnd -= moved;
+        } else if (offset > gap) {
+            int moved = offset - gap;
+            System.arraycopy(chars, gapEnd, chars, gap, moved);
+            gap += moved;
+            gapEnd += moved;
+        }
+    }
+
+    // Make room for at least n characters in the gap.
+    private void reserve(int n) {
+        if (gapEnd - gap >= n) {
+            return;
+        }
+        int capacity = Math.max(chars.length * 2, length() + n + MIN_GAP);
+        int tail = chars.length - gapEnd;
+        char[] grown = Arrays.copyOf(chars, capacity);
+        System.arraycopy(chars, gapEnd, grown, capacity - tail, tail);
+        chars = grown;
+        gapEnd = capacity - tail;
+    }
+
+    // Newlines in chars[from, to), raw indices on one side of the gap.
+    private int newlines(int from, int to) {
+        int count = 0;
+        for (int i = CharSearch.indexOf(chars, from, to, '\n', '\n'); i < to;
+                i = CharSearch.indexOf(chars, i + 1, to, '\n', '\n')) {
+            count++;
+        }
+        return count;
+    }
+
+    // A Scanner over the text as it is, reading around the gap.
+    private class Window extends Scanner {
+        Window(int from, int line) {
+            super(from, line);
+        }
+
+        @Override
+        String text(int from, int to) {
+            if (to <= gap) {
+                return new String(chars, from, to - from);
+            }
+            int shift = gapEnd - gap;
+            if (from >= gap) {
+                return new String(chars, from + shift, to - from);
+            }
+            return new StringBuilder(to - from)
+                    .append(chars, from, gap - from)
+                    .append(chars, gapEnd, to - gap)
+                    .toString();
+        }
+
+        @Override
+        char charAt(int index) {
+            return chars[index < gap ? index : index + (gapEnd - gap)];
+        }
+
+        @Override
+        boolean isAtEnd() {
+            return current >= length();
+        }
+
+        @Override
+        char advance() {
+            return charAt(current++);
+        }
+
+        @Override
+        char peek() {
+            return isAtEnd() ? '\0' : charAt(current);
+        }
+
+        @Override
+        char peekNext() {
+            return current + 1 >= length() ? '\0' : charAt(current + 1);
+        }
+
+        @Override
+        void skipUntil(char a, char b) {
+            if (current < gap) {
+                current = CharSearch.indexOf(chars, current, gap, a, b);
+                if (current < gap) {
+                    return;
+                }
+            }
+            int shift = gapEnd - gap;
+            current = CharSearch.indexOf(chars, current + shift, chars.length, a, b) - shift;
+        }
+
+        @Override
+        void skipBlanks() {
+            if (current < gap) {
+                current = CharSearch.skipBlanks(chars, current, gap);
+                if (current < gap) {
+                    return;
+                }
+            }
+            int shift = gapEnd - gap;
+            current = CharSearch.skipBlanks(chars, current + shift, chars.length) - shift;
+        }
+
+        // Walks back to the start of the line instead of indexing the whole
+        // buffer, since a half-typed string errors on every keystroke.
+        @Override
+        int column(int offset, int line) {
+            for (int i = offset; i < current; i++) {
+                if (charAt(i) == '\n') {
+                    return 0;
+                }
+            }
+            int from = offset;
+            while (from > 0 && charAt(from - 1) != '\n') {
+                from--;
+            }
+            return offset - from + 1;
+        }
+    }
+}
@@ -1,4 +1,5 @@
 package com.craftinginterpreters.lox;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.craftinginterpreters.lox.TokenType.BANG;
@@ -8,6 +9,24 @@ import static com.craftinginterpreters.lox.TokenType.SLASH;
 import static com.craftinginterpreters.lox.TokenType.STAR;
 
 public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
+    private Environment environment=new Environment();
+    // Evaluate with explicit stacks instead of recursing through accept, so
+    // nesting depth is bounded by the heap rather than the Java stack.
+    private final boolean iterative;
+    private Expr[] pending=new Expr[64];
+    private int[] stages=new int[64];
+    private Object[] operands=new Object[64];
+    private final Numbers numbers=new Numbers();
+    private final Truths truths=new Truths();
+
+    public Interpreter(){
+        this(false);
+    }
+
+    public Interpreter(boolean iterative){
+        this.iterative=iterative;
+    }
+
     @Override
     public Object visitLiteralExpr(Expr.Literal expr){
         return expr.value;
@@ -23,6 +42,18 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
         }
     }
 
+    // Run one statement as soon as it has been parsed. Returns false if it
+    // failed with a runtime error, which has already been reported.
+    boolean interpret(Stmt statement){
+        try {
+            exec(statement);
+            return true;
+        } catch (RuntimeError error) {
+            Lox.runtimeError(error);
+            return false;
+        }
+    }
+
     private Void exec(Stmt stmt){
         stmt.accept(this);
         return null;
@@ -34,6 +65,16 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
         return null;
     }
 
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt){
+        Object value=null;
+        if(stmt.initializer!=null){
+            value=evaluate(stmt.initializer);
+        }
+        environment.define(stmt.symbol, value);
+        return null;
+    }
+
     @Override
     public Void visitPrintStmt(Stmt.Print stmt){
         Object vaule=evaluate(stmt.expression);
@@ -41,7 +82,7 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
         return null;
     }
 
-    private String stringify(Object object){
+    String stringify(Object object){
         if(object==null) return "nil";
         if(object instanceof Double){
             String text=object.toString();
@@ -54,9 +95,120 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
     }
 
     public Object evaluate(Expr expr){
+        if(iterative) return evaluateIterative(expr);
         return expr.accept(this);
     }
 
+    // The same walk as the visitor methods: each pending node records how
+    // many of its children are done, and finished values wait on their own
+    // stack until the parent combines them. Groupings, commas and the taken
+    // branch of a ternary replace their own frame.
+    private Object evaluateIterative(Expr root){
+        int top=0;
+        int count=0;
+        pending[top]=root;
+        stages[top++]=0;
+        while(top>0){
+            Expr expr=pending[top-1];
+            int stage=stages[top-1]++;
+            if(top==pending.length){
+                pending=Arrays.copyOf(pending, top*2);
+                stages=Arrays.copyOf(stages, top*2);
+            }
+            if(count+1>=operands.length){
+                operands=Arrays.copyOf(operands, operands.length*2);
+            }
+            if(expr instanceof Expr.Binary binary){
+                if(stage<2){
+                    pending[top]=stage==0?binary.left:binary.right;
+                    stages[top++]=0;
+                    continue;
+                }
+                Object right=operands[--count];
+                Object left=operands[--count];
+                top--;
+                operands[count++]=binary(binary.operator, left, right);
+            } else if(expr instanceof Expr.Literal literal){
+                top--;
+                operands[count++]=literal.value;
+            } else if(expr instanceof Expr.Variable variable){
+                top--;
+                operands[count++]=environment.get(variable.name,variable.symbol);
+            } else if(expr instanceof Expr.Unary unary){
+                if(stage==0){
+                    pending[top]=unary.right;
+                    stages[top++]=0;
+                    continue;
+                }
+                top--;
+                operands[count-1]=unary(unary.operator, operands[count-1]);
+            } else if(expr instanceof Expr.Grouping grouping){
+                pending[top-1]=grouping.expression;
+                stages[top-1]=0;
+            } else if(expr instanceof Expr.Comma comma){
+                pending[top-1]=comma.right;
+                stages[top-1]=0;
+            } else if(expr instanceof Expr.Ternary ternary){
+                if(stage==0){
+                    pending[top]=ternary.condition;
+                    stages[top++]=0;
+                    continue;
+                }
+                pending[top-1]=isTruthy(operands[--count])?ternary.left:ternary.right;
+                stages[top-1]=0;
+            }
+        }
+        Object result=operands[0];
+        Arrays.fill(operands, 0, 1, null);
+        return result;
+    }
+
+    // The record form of a program. Nodes are told apart with instanceof
+    // tests over the sealed hierarchy instead of accept() and a visitor call;
+    // Java 17 only has switch patterns as a preview. Most common kinds first.
+    void interpretNodes(List<StmtNode> statements){
+        try {
+            for(StmtNode statement:statements){
+                execute(statement);
+            }
+        } catch (RuntimeError error) {
+            Lox.runtimeError(error);
+        }
+    }
+
+    private void execute(StmtNode stmt){
+        if(stmt instanceof StmtNode.Var var){
+            environment.define(var.symbol(), var.initializer()==null?null:evaluate(var.initializer()));
+        } else if(stmt instanceof StmtNode.Print print){
+            System.out.println(stringify(evaluate(print.expression())));
+        } else if(stmt instanceof StmtNode.Expression expression){
+            evaluate(expression.expression());
+        } else {
+            throw new IllegalStateException("Unknown node "+stmt);
+        }
+    }
+
+    Object evaluate(ExprNode expr){
+        if(expr instanceof ExprNode.Literal literal){
+            return literal.value();
+        } else if(expr instanceof ExprNode.Binary binary){
+            Object left=evaluate(binary.left());
+            Object right=evaluate(binary.right());
+            return binary(binary.operator(), left, right);
+        } else if(expr instanceof ExprNode.Variable variable){
+            return environment.get(variable.name(),variable.symbol());
+        } else if(expr instanceof ExprNode.Unary unary){
+            return unary(unary.operator(), evaluate(unary.right()));
+        } else if(expr instanceof ExprNode.Grouping grouping){
+            return evaluate(grouping.expression());
+        } else if(expr instanceof ExprNode.Ternary ternary){
+            return evaluate(isTruthy(evaluate(ternary.condition()))?ternary.left():ternary.right());
+        } else if(expr instanceof ExprNode.Comma comma){
+            return evaluate(comma.right());
+        }
+        throw new IllegalStateException("Unknown node "+expr);
+    }
+
     private void checkNumberOperand(Token operator,Object operand){
         if(operand instanceof Double) return;
         throw new RuntimeError(operator,"Operand must be a number.");
@@ -77,11 +229,18 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
 
     @Override
     public  Object visitUnaryExpr(Expr.Unary expr){
-        Object right=evaluate(expr.right);
-        Token operator=expr.operator;
+        if(expr.operator.type==MINUS) return number(expr);
+        if(expr.operator.type==BANG) return !truthy(expr.right);
+        return unary(expr.operator, evaluate(expr.right));
+    }
+
+    // The compiled backends do numbers themselves and hand every other
+    // operand, and every error, to unary() and binary(), and print through
+    // stringify(), so their values, output and RuntimeErrors are these.
+    Object unary(Token operator,Object right){
         switch(operator.type){
             case MINUS ->{
-                checkNumberOperand(operator, expr);
+                checkNumberOperand(operator, right);
                 return -(Double)right;
             }
             case BANG -> {
@@ -91,6 +250,11 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
         return null;
     }
 
+    @Override
+    public Object visitVariableExpr(Expr.Variable expr){
+        return environment.get(expr.name,expr.symbol);
+    }
+
     @Override 
     public Object visitGroupingExpr(Expr.Grouping expr){
         return evaluate(expr.expression);
@@ -103,7 +267,7 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
 
     @Override
     public  Object visitTernaryExpr(Expr.Ternary ternary){
-        if(isTruthy(evaluate(ternary.condition))){
+        if(truthy(ternary.condition)){
             return evaluate(ternary.left);
         }
         else return evaluate(ternary.right);
@@ -111,9 +275,21 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
 
     @Override
     public Object visitBinaryExpr(Expr.Binary expr){
+        switch(expr.operator.type){
+            // A + that turns out to join strings finishes on the boxed path.
+            case PLUS, MINUS, STAR, SLASH -> {
+                return number(expr);
+            }
+            case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+                return truthy(expr);
+            }
+        }
         Object left=evaluate(expr.left);
         Object right=evaluate(expr.right);
-        Token operator=expr.operator;
+        return binary(expr.operator, left, right);
+    }
+
+    Object binary(Token operator,Object left,Object right){
         switch (operator.type){
             case PLUS ->{
                 if(left instanceof Double && right instanceof Double){
@@ -126,7 +302,7 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
                 if(left instanceof  String || right instanceof String){
                     return stringify(left)+stringify(right);
                 }
-                throw new RuntimeError(expr.operator,"Operands must be two numbers or two strings.");
+                throw new RuntimeError(operator,"Operands must be two numbers or two strings.");
             }
             case MINUS -> {
                 checkNumberOperands(operator, left,right);
@@ -134,7 +310,7 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
             }
             case SLASH -> {
                 checkNumberOperands(operator, left,right);
-                if(right.equals(0.0)) throw new RuntimeError(expr.operator,"division by zero");
+                if(right.equals(0.0)) throw new RuntimeError(operator,"division by zero");
                 return (Double)left/(Double) right;
             }
             case STAR ->  {
@@ -167,6 +343,181 @@ public class Interpreter implements Expr.Visitor<Object>,Stmt.Visitor<Void>{
         return null;
     }
 
+    // Arithmetic and comparisons run through Numbers and Truths, which
+    // return unboxed doubles and booleans, so a numeric subtree allocates
+    // at most the one Double it hands back here. Both fall back to the boxed
+    // operators above whenever an operand is not a number, so every result
+    // and error is exactly what the boxed path would give.
+    private Object number(Expr expr){
+        try {
+            return expr.accept(numbers);
+        } catch (NotANumber notANumber) {
+            return notANumber.value;
+        }
+    }
+
+    private boolean truthy(Expr expr){
+        return expr.accept(truths);
+    }
+
+    // Thrown by Numbers when a subtree's value is not a number, carrying the
+    // value so the caller can finish on the boxed path. It never escapes
+    // the Interpreter and has no stack trace.
+    private static class NotANumber extends RuntimeException{
+        final Object value;
+
+        NotANumber(Object value){
+            super(null, null, false, false);
+            this.value=value;
+        }
+    }
+
+    private static double unboxed(Object value){
+        if(value instanceof Double number) return number;
+        throw new NotANumber(value);
+    }
+
+    private class Numbers implements Expr.DoubleVisitor{
+        @Override
+        public double visitLiteralExpr(Expr.Literal expr){
+            return unboxed(expr.value);
+        }
+
+        @Override
+        public double visitVariableExpr(Expr.Variable expr){
+            return unboxed(environment.get(expr.name,expr.symbol));
+        }
+
+        @Override
+        public double visitGroupingExpr(Expr.Grouping expr){
+            return expr.expression.accept(this);
+        }
+
+        @Override
+        public double visitCommaExpr(Expr.Comma expr){
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public double visitTernaryExpr(Expr.Ternary expr){
+            return (truthy(expr.condition)?expr.left:expr.right).accept(this);
+        }
+
+        @Override
+        public double visitUnaryExpr(Expr.Unary expr){
+            if(expr.operator.type!=MINUS) return unboxed(Interpreter.this.visitUnaryExpr(expr));
+            double right;
+            try {
+                right=expr.right.accept(this);
+            } catch (NotANumber notANumber) {
+                return unboxed(unary(expr.operator, notANumber.value));
+            }
+            return -right;
+        }
+
+        @Override
+        public double visitBinaryExpr(Expr.Binary expr){
+            Token operator=expr.operator;
+            switch(operator.type){
+                case PLUS, MINUS, STAR, SLASH -> {}
+                default -> {
+                    return unboxed(Interpreter.this.visitBinaryExpr(expr));
+                }
+            }
+            double left;
+            try {
+                left=expr.left.accept(this);
+            } catch (NotANumber notANumber) {
+                return unboxed(binary(operator, notANumber.value, evaluate(expr.right)));
+            }
+            double right;
+            try {
+                right=expr.right.accept(this);
+            } catch (NotANumber notANumber) {
+                return unboxed(binary(operator, left, notANumber.value));
+            }
+            switch(operator.type){
+                case PLUS -> {
+                    return left+right;
+                }
+                case MINUS -> {
+                    return left-right;
+                }
+                case STAR -> {
+                    return left*right;
+                }
+                default -> {
+                    // Same test as right.equals(0.0): -0 is not caught.
+                    if(Double.doubleToLongBits(right)==0L) throw new RuntimeError(operator,"division by zero");
+                    return left/right;
+                }
+            }
+        }
+    }
+
+    // Evaluates to the truthiness of the value.
+    private class Truths implements Expr.BooleanVisitor{
+        @Override
+        public boolean visitLiteralExpr(Expr.Literal expr){
+            return isTruthy(expr.value);
+        }
+
+        @Override
+        public boolean visitVariableExpr(Expr.Variable expr){
+            return isTruthy(environment.get(expr.name,expr.symbol));
+        }
+
+        @Override
+        public boolean visitGroupingExpr(Expr.Grouping expr){
+            return expr.expression.accept(this);
+        }
+
+        @Override
+        public boolean visitCommaExpr(Expr.Comma expr){
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public boolean visitTernaryExpr(Expr.Ternary expr){
+            return (expr.condition.accept(this)?expr.left:expr.right).accept(this);
+        }
+
+        @Override
+        public boolean visitUnaryExpr(Expr.Unary expr){
+            if(expr.operator.type==BANG) return !expr.right.accept(this);
+            return isTruthy(Interpreter.this.visitUnaryExpr(expr));
+        }
+
+        @Override
+        public boolean visitBinaryExpr(Expr.Binary expr){
+            Token operator=expr.operator;
+            switch(operator.type){
+                case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {}
+                default -> {
+                    return isTruthy(Interpreter.this.visitBinaryExpr(expr));
+                }
+            }
+            double left;
+            try {
+                left=expr.left.accept(numbers);
+            } catch (NotANumber notANumber) {
+                return isTruthy(binary(operator, notANumber.value, evaluate(expr.right)));
+            }
+            double right;
+            try {
+                right=expr.right.accept(numbers);
+            } catch (NotANumber notANumber) {
+                return isTruthy(binary(operator, left, notANumber.value));
+            }
+            return switch(operator.type){
+                case GREATER -> left>right;
+                case GREATER_EQUAL -> left>=right;
+                case LESS -> left<right;
+                default -> left<=right;
+            };
+        }
+    }
+
     private Boolean isEqual(Object a,Object b){
         if(a==null &&b==null) return true;
         if(a==null) return false;   //为什么使用equals 而不是== 因为等于等于 比较的很可能是引用值 而不是实际内容
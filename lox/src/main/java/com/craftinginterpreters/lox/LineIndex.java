@@ -0,0 +1,88 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/*
+ * Offsets at which each line of a source starts. Tokens only need to carry
+ * their offset; line and column are looked up here by binary search when a
+ * diagnostic actually asks for them.
+ *
+ * A Reader's index grows while it is being scanned, and with a threaded
+ * StatementPipeline that happens on the parser thread while the interpreter
+ * thread may be looking up a runtime error, so access is synchronized. It is
+ * also windowed: only the most recent lines are kept, so the index doesn't
+ * grow with the file, and offsets older than that have no line or column.
+ */
+class LineIndex {
+    private int[] starts = new int[16];
+    private int size = 1;
+    // Most line starts a windowed index keeps, or 0 to keep them all, and
+    // how many it has dropped from the front.
+    private final int window;
+    private int dropped = 0;
+
+    LineIndex() {
+        this(0);
+    }
+
+    LineIndex(int window) {
+        this.window = window;
+    }
+
+    // Build the index for chars[0, length) in one pass of newline searches.
+    static LineIndex of(char[] chars, int length) {
+        LineIndex index = new LineIndex();
+        for (int i = CharSearch.indexOf(chars, 0, length, '\n', '\n'); i < length;
+                i = CharSearch.indexOf(chars, i + 1, length, '\n', '\n')) {
+            index.add(i + 1);
+        }
+        return index;
+    }
+
+    // Record that a new line starts at offset. Offsets must be increasing.
+    synchronized void add(int offset) {
+        if (size == starts.length) {
+            if (window > 0 && size >= window) {
+                int drop = size / 2;
+                System.arraycopy(starts, drop, starts, 0, size - drop);
+                size -= drop;
+                dropped += drop;
+            } else {
+                starts = Arrays.copyOf(starts, size * 2);
+            }
+        }
+        starts[size++] = offset;
+    }
+
+    // 1-based line containing offset, or 0 if the window has moved past it.
+    synchronized int line(int offset) {
+        return offset < starts[0] ? 0 : dropped + index(offset) + 1;
+    }
+
+    // 1-based column of offset within its line, counted in source units, or
+    // 0 if the window has moved past it.
+    synchronized int column(int offset) {
+        return offset < starts[0] ? 0 : offset - starts[index(offset)] + 1;
+    }
+
+    // Column of a token starting at offset whose line, as Token.line has
+    // it, is the line it ends on. A token that starts on an earlier line (a
+    // multi-line string) has no column on that line, so this gives 0.
+    synchronized int column(int offset, int line) {
+        return line(offset) == line ? column(offset) : 0;
+    }
+
+    private int index(int offset) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
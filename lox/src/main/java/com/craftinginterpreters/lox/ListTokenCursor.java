@@ -0,0 +1,27 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+class ListTokenCursor implements TokenCursor {
+    private final List<Token> tokens;
+    private int current = 0;
+
+    ListTokenCursor(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public Token peek() {
+        return tokens.get(current);
+    }
+
+    @Override
+    public Token previous() {
+        return tokens.get(current - 1);
+    }
+
+    @Override
+    public void advance() {
+        current++;
+    }
+}
@@ -3,20 +3,89 @@ package com.craftinginterpreters.lox;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class Lox {
+  // Files at least this large are scanned from a memory mapping.
+  static final long MAP_THRESHOLD = 1 << 20;
+
   static boolean hadError = false;
   static boolean hadRuntimeError=false;
 
-  static Interpreter interpreter=new Interpreter();
+  // -Dlox.iterative=true parses and evaluates expressions with explicit
+  // stacks, for generated code nested deeper than the Java stack allows.
+  static final boolean iterative = Boolean.getBoolean("lox.iterative");
+
+  // -Dlox.stream=inline runs each statement as soon as it is parsed;
+  // -Dlox.stream=threaded also moves scanning and parsing to a thread of
+  // their own. By default nothing runs until the whole source has parsed
+  // without errors.
+  static final String stream = System.getProperty("lox.stream", "");
+
+  // -Dlox.parallel=true scans and parses script files on all cores before
+  // running them.
+  static final boolean parallel = Boolean.getBoolean("lox.parallel");
+
+  // -Dlox.share=true builds each distinct constant subexpression once and
+  // shares it, already evaluated, wherever it is repeated.
+  static final boolean share = Boolean.getBoolean("lox.share");
+
+  // -Dlox.cache=<directory> keeps the parse of each script file there, keyed
+  // by a hash of its content, and runs an unchanged script without scanning
+  // or parsing it again. Scripts always run as a batch in this mode.
+  static final String cache = System.getProperty("lox.cache");
+
+  // -Dlox.records=true runs batches as the generated ExprNode and StmtNode
+  // records, dispatched by type tests, instead of through the visitors.
+  // Here each batch is converted as part of running it; Benchmark converts
+  // first and times the two dispatch styles alone.
+  static final boolean records = Boolean.getBoolean("lox.records");
+
+  // -Dlox.backend=vm compiles statements to bytecode for StackVM,
+  // -Dlox.backend=register to register code for RegisterVM, and
+  // -Dlox.backend=closure to pre-linked lambdas, instead of walking the tree.
+  static final String backend = System.getProperty("lox.backend", "tree");
+
+  static Interpreter interpreter=new Interpreter(iterative);
+  private static final StackVM vm = new StackVM();
+  private static final RegisterVM registerVM = new RegisterVM();
+  private static final ClosureCompiler closures = new ClosureCompiler();
+  // Folds constant subexpressions before statements run. It recurses like
+  // the default parser and interpreter, so it is skipped with lox.iterative.
+  private static final ConstantFolder folder = iterative ? null : new ConstantFolder();
+  // Scanner of the program being run, for turning token offsets into columns.
+  private static Scanner source;
+  // Builds source on first use, for a cached script that was never scanned.
+  private static Supplier<Scanner> unscanned;
+
+  // Every mode is picked with a system property, so they are all listed.
+  static final String USAGE = String.join("\n",
+      "Usage: jlox [script]",
+      "Modes, set as java -D<property>=<value>:",
+      "  lox.backend=tree|vm|register|closure  engine that runs the script (default tree)",
+      "  lox.iterative=true                    parse and evaluate without recursion (tree only)",
+      "  lox.stream=inline|threaded            run each statement as soon as it parses",
+      "  lox.parallel=true                     scan and parse script files on all cores",
+      "  lox.share=true                        build repeated constant subexpressions once",
+      "  lox.cache=<directory>                 reuse the parse of an unchanged script file",
+      "  lox.records=true                      run the tree as records (tree only)");
 
   public static void main(String[] args) throws IOException {
-    if (args.length > 1) {
-      System.out.println("Usage: jlox [script]");
+    String conflict = conflict(iterative, stream, parallel, share, cache, records, backend);
+    if (args.length > 1 || conflict != null) {
+      System.out.println(USAGE);
+      if (conflict != null) System.err.println(conflict);
       System.exit(64);
     } else if (args.length == 1) {
       runFile(args[0]);
@@ -25,14 +94,97 @@ public class Lox {
     }
   }
 
+  // Why the flags can't run as given, or null if they can. Every mode is
+  // rejected rather than quietly dropped where another one would win over
+  // it, so a run always uses the engine that was asked for.
+  static String conflict(boolean iterative, String stream, boolean parallel, boolean share,
+                         String cache, boolean records, String backend) {
+    if (!List.of("tree", "vm", "register", "closure").contains(backend)) {
+      return "Unknown lox.backend '" + backend + "'; expected tree, vm, register or closure.";
+    }
+    if (!List.of("", "inline", "threaded").contains(stream)) {
+      return "Unknown lox.stream '" + stream + "'; expected inline or threaded.";
+    }
+    // The compilers, the folder and the record conversion all recurse.
+    if (iterative && !backend.equals("tree")) {
+      return "lox.iterative only runs on the tree backend, not lox.backend=" + backend + ".";
+    }
+    if (iterative && records) return "lox.iterative and lox.records can't be used together.";
+    if (records && !backend.equals("tree")) {
+      return "lox.records is a tree backend mode and can't be used with lox.backend=" + backend + ".";
+    }
+    if (records && !stream.isEmpty()) return "lox.records only runs batches, not lox.stream.";
+    if (cache != null) {
+      if (iterative) return "lox.cache can't be used with lox.iterative.";
+      if (parallel) return "lox.cache and lox.parallel can't be used together.";
+      if (!stream.isEmpty()) return "lox.cache always runs scripts as a batch, not lox.stream.";
+    }
+    if (parallel) {
+      if (iterative) return "lox.parallel can't be used with lox.iterative.";
+      if (share) return "lox.parallel can't be used with lox.share.";
+      if (!stream.isEmpty()) return "lox.parallel always runs scripts as a batch, not lox.stream.";
+    }
+    return null;
+  }
+
   private static void runFile(String path) throws IOException {
-    byte[] bytes = Files.readAllBytes(Paths.get(path));
-    run(new String(bytes, Charset.defaultCharset()));
+    Path file = Paths.get(path);
+    long size = Files.size(file);
+    if (cache != null) {
+      runCached(file, size);
+    } else if (parallel) {
+      // Decoded like the Reader path, with bad bytes replaced.
+      runParallel(new String(Files.readAllBytes(file), Charset.defaultCharset()).toCharArray());
+    } else if (mappable(size)) {
+      run(MappedScanner.map(file));
+    } else {
+      try (Reader reader = new InputStreamReader(
+          Files.newInputStream(file), Charset.defaultCharset())) {
+        run(new Scanner(reader));
+      }
+    }
     
     if (hadError) System.exit(65);
     if(hadRuntimeError) System.exit(70);
   }
 
+  private static boolean mappable(long size) {
+    return size >= MAP_THRESHOLD && size <= Integer.MAX_VALUE
+        && Charset.defaultCharset().equals(StandardCharsets.UTF_8);
+  }
+
+  // The file is read once, mapped or into an array, and hashed from there.
+  // Only a miss decodes and scans it; a hit leaves the scanner to be built
+  // if a runtime error needs a column.
+  private static void runCached(Path file, long size) throws IOException {
+    ParseCache parses = new ParseCache(Paths.get(cache));
+    Charset charset = Charset.defaultCharset();
+    boolean mapped = mappable(size);
+    ByteBuffer bytes;
+    if (mapped) {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+    } else {
+      bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+    }
+    String key = parses.key(bytes, charset);
+    Supplier<Scanner> scanner = () -> mapped ? new MappedScanner(bytes)
+        : new Scanner(new String(bytes.array(), charset));
+    List<Stmt> statements = parses.load(key);
+    if (statements == null) {
+      source = scanner.get();
+      Parser parser = new Parser(new StreamingTokenCursor(source));
+      if (share) parser.buildWith(ExprFactory.sharing(true));
+      statements = parser.parse();
+      if (hadError) return;
+      parses.store(key, statements);
+    } else {
+      unscanned = scanner;
+    }
+    execute(fold(statements));
+  }
+
   private static void runPrompt() throws IOException {
     InputStreamReader input = new InputStreamReader(System.in);
     BufferedReader reader = new BufferedReader(input);
@@ -47,42 +199,129 @@ public class Lox {
   }
 
   private static void run(String source) {
-    Scanner scanner = new Scanner(source);
-    List<Token> tokens = scanner.scanTokens();
-    Parser parser=new Parser(tokens);
-    List<Stmt> statements=parser.parse();
-    if(hadError) return;
-    interpreter.interpret(statements);
-    //System.out.println(new Interpreter().evaluate(expression));
-    // System.err.println(new Interpreter.evaluate(expression));
-    // 打印 tokens
-    // for (Token token : tokens) {
-    //   System.out.println(token);
-    // }
+    run(new Scanner(source));
+  }
+
+  private static void run(Scanner scanner) {
+    source = scanner;
+    Parser parser=new Parser(new StreamingTokenCursor(scanner), iterative);
+    if (share) parser.buildWith(ExprFactory.sharing(true));
+    switch (stream) {
+      case "inline" -> runStreaming(parser.statements());
+      case "threaded" -> runStreaming(new StatementPipeline(parser));
+      default -> {
+        List<Stmt> statements=parser.parse();
+        if(hadError) return;
+        execute(fold(statements));
+      }
+    }
   }
   
+  // Scanner errors are all reported before parser errors here, rather than
+  // interleaved by position as a single pass would. The scanner for
+  // columns shares the parallel scanner's chars and is only built if an
+  // error needs it.
+  private static void runParallel(char[] text) {
+    unscanned = () -> new Scanner(text);
+    List<Stmt> statements = new ParallelParser(new ParallelScanner(text).scanTokens()).parse();
+    if (hadError) return;
+    execute(fold(statements));
+  }
+
+  // Execution stops at the first syntax or runtime error, but parsing goes
+  // on to the end so every syntax error is still reported.
+  private static void runStreaming(Iterator<Stmt> statements) {
+    boolean running = true;
+    while (statements.hasNext()) {
+      Stmt statement = statements.next();
+      if (running && !hadError) {
+        running = execute(folder == null ? statement : folder.fold(statement));
+      }
+    }
+  }
+
+  private static void execute(List<Stmt> statements) {
+    if (backend.equals("vm")) {
+      vm.run(BytecodeCompiler.compile(statements));
+    } else if (backend.equals("register")) {
+      registerVM.run(RegisterCompiler.compile(statements));
+    } else if (backend.equals("closure")) {
+      closures.run(closures.compile(statements));
+    } else if (records) {
+      interpreter.interpretNodes(statements.stream().map(StmtNode::of).toList());
+    } else {
+      interpreter.interpret(statements);
+    }
+  }
+
+  private static boolean execute(Stmt statement) {
+    if (backend.equals("vm")) return vm.run(BytecodeCompiler.compile(statement));
+    if (backend.equals("register")) return registerVM.run(RegisterCompiler.compile(statement));
+    if (backend.equals("closure")) return closures.run(closures.compile(statement));
+    return interpreter.interpret(statement);
+  }
+
+  private static List<Stmt> fold(List<Stmt> statements) {
+    return folder == null ? statements : folder.fold(statements);
+  }
+
+  // Runs compiled code and reports the RuntimeError it stops with, if any.
+  // Returns false if it stopped that way.
+  static boolean runReported(Runnable code) {
+    try {
+      code.run();
+      return true;
+    } catch (RuntimeError error) {
+      runtimeError(error);
+      return false;
+    }
+  }
+
   static void runtimeError(RuntimeError error){
-    System.err.println("[line"+error.token.line+"] "+error.getMessage());
+    System.err.println(location(error.token)+" "+error.getMessage());
     hadRuntimeError=true;
   }
 
   static void error(int line, String message) {
-    report(line, "", message);
+    report(line, 0, "", message);
   }
 
-  private static void report(int line, String where, String message) {
-    System.err.println(
-        "[line " + line + "] Error " + where + ": " + message);
+  static void error(int line, int column, String message) {
+    report(line, column, "", message);
+  }
+
+  private static void report(int line, int column, String where, String message) {
+    report(location(line, column), where, message);
+  }
+
+  private static void report(String location, String where, String message) {
+    System.err.println(location + " Error " + where + ": " + message);
     hadError = true;
   }
 
   static  void error(Token token,String message){
     if(token.type ==TokenType.EOF){
-      report(token.line,"at end", message);
+      report(location(token), "at end", message);
     }
     else {
-      report(token.line, "at'"+token.lexeme+"'", message);
+      report(location(token), "at'"+token.lexeme+"'", message);
+    }
+  }
+
+  // The column is only worked out here, on the error path, from the
+  // token's offset and the source's LineIndex, in chars on every path.
+  private static String location(Token token) {
+    if (source == null && unscanned != null) {
+      source = unscanned.get();
+      unscanned = null;
     }
+    if (token.offset < 0 || source == null) return location(token.line, 0);
+    return location(token.line, source.column(token.offset, token.line));
+  }
+
+  private static String location(int line, int column) {
+    if (column <= 0) return "[line " + line + "]";
+    return "[line " + line + ", column " + column + "]";
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Scans UTF-8 source straight out of a memory-mapped file. Every Lox token
+ * outside of string literals and comments is ASCII, so bytes are compared
+ * directly and only lexemes are ever decoded. Pages are faulted in by the OS
+ * as the scanner reaches them instead of being copied onto the heap up front.
+ */
+class MappedScanner extends Scanner {
+    private final ByteBuffer bytes;
+    private final int limit;
+    private LineIndex lines;
+
+    MappedScanner(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.limit = bytes.limit();
+    }
+
+    static MappedScanner map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedScanner(mapped);
+        }
+    }
+
+    @Override
+    synchronized LineIndex lines() {
+        if (lines == null) {
+            lines = new LineIndex();
+            for (int i = 0; i < limit; i++) {
+                if (bytes.get(i) == '\n') {
+                    lines.add(i + 1);
+                }
+            }
+        }
+        return lines;
+    }
+
+    // The index counts bytes, but a column counts chars as on the other
+    // paths, so the line's bytes before offset are counted as the UTF-16
+    // units they decode to: none for a continuation byte, two for the lead
+    // of a four-byte sequence.
+    @Override
+    int column(int offset, int line) {
+        int column = lines().column(offset, line);
+        if (column == 0) {
+            return 0;
+        }
+        int chars = 1;
+        for (int i = offset - column + 1; i < offset; i++) {
+            byte b = bytes.get(i);
+            if ((b & 0xc0) != 0x80) {
+                chars += (b & 0xf8) == 0xf0 ? 2 : 1;
+            }
+        }
+        return chars;
+    }
+
+    @Override
+    boolean readsBytes() {
+        return true;
+    }
+
+    @Override
+    String text(int from, int to) {
+        byte[] slice = new byte[to - from];
+        bytes.get(from, slice);
+        return new String(slice, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    char charAt(int index) {
+        return (char) (bytes.get(index) & 0xff);
+    }
+
+    @Override
+    boolean isAtEnd() {
+        return current >= limit;
+    }
+
+    @Override
+    char advance() {
+        byte b = bytes.get(current++);
+        if (b >= 0) {
+            return (char) b;
+        }
+        return decode(b);
+    }
+
+    // Non-ASCII bytes never equal any character the scanner looks for, so
+    // peeking can hand back the raw byte without decoding it.
+    @Override
+    char peek() {
+        if (isAtEnd()) {
+            return '\0';
+        }
+        return (char) (bytes.get(current) & 0xff);
+    }
+
+    @Override
+    char peekNext() {
+        if (current + 1 >= limit) {
+            return '\0';
+        }
+        return (char) (bytes.get(current + 1) & 0xff);
+    }
+
+    // The vector searches in CharSearch work on char[], so mapped bytes get
+    // plain loops; they still skip the per-character virtual calls.
+    @Override
+    void skipUntil(char a, char b) {
+        while (current < limit) {
+            byte c = bytes.get(current);
+            if (c == a || c == b) {
+                return;
+            }
+            current++;
+        }
+    }
+
+    @Override
+    void skipBlanks() {
+        while (current < limit) {
+            byte c = bytes.get(current);
+            if (c != ' ' && c != '\t') {
+                return;
+            }
+            current++;
+        }
+    }
+
+    // Consume the rest of a multi-byte sequence whose lead byte has already
+    // been read. Only used to name the character in error messages, so
+    // anything outside the BMP or malformed comes back as U+FFFD.
+    private char decode(byte lead) {
+        int length;
+        int codePoint;
+        if ((lead & 0xe0) == 0xc0) {
+            length = 2;
+            codePoint = lead & 0x1f;
+        } else if ((lead & 0xf0) == 0xe0) {
+            length = 3;
+            codePoint = lead & 0x0f;
+        } else if ((lead & 0xf8) == 0xf0) {
+            length = 4;
+            codePoint = lead & 0x07;
+        } else {
+            return '\uFFFD';
+        }
+        for (int i = 1; i < length; i++) {
+            if (isAtEnd() || (bytes.get(current) & 0xc0) != 0x80) {
+                return '\uFFFD';
+            }
+            codePoint = (codePoint << 6) | (bytes.get(current++) & 0x3f);
+        }
+        return codePoint <= 0xffff ? (char) codePoint : '\uFFFD';
+    }
+}
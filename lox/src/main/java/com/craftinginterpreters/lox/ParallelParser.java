@@ -0,0 +1,93 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static com.craftinginterpreters.lox.TokenType.EOF;
+import static com.craftinginterpreters.lox.TokenType.SEMICOLON;
+
+/*
+ * Parses a long token list on several threads. The list is cut just after
+ * a semicolon, each partition is parsed by its own Parser, and the
+ * statement lists are joined back together.
+ *
+ * Any semicolon is a safe cut. A statement that parses never consumes one
+ * except as its terminator, and after an error synchronize() stops at the
+ * first semicolon it passes, if not sooner. So a single Parser is always
+ * exactly at the token after each semicolon once it gets past it, and the
+ * statements, nulls for errors included, come out the same.
+ */
+class ParallelParser {
+    // Below this many tokens per partition, splitting costs more than it
+    // saves.
+    static final int MIN_PARTITION = 1 << 14;
+
+    private final List<Token> tokens;
+    private final ForkJoinPool pool;
+
+    ParallelParser(List<Token> tokens, ForkJoinPool pool) {
+        this.tokens = tokens;
+        this.pool = pool;
+    }
+
+    ParallelParser(List<Token> tokens) {
+        this(tokens, ForkJoinPool.commonPool());
+    }
+
+    List<Stmt> parse() {
+        int partitions = Math.max(1, Math.min(pool.getParallelism() * 4, tokens.size() / MIN_PARTITION));
+        // With one worker, partitioning is pure overhead.
+        if (partitions == 1 || pool.getParallelism() == 1) {
+            return new Parser(tokens).parse();
+        }
+        List<Integer> cuts = split(tokens.size() / partitions);
+
+        List<Parser> parsers = new ArrayList<>();
+        List<ForkJoinTask<List<Stmt>>> tasks = new ArrayList<>();
+        for (int i = 0; i < cuts.size(); i++) {
+            int from = cuts.get(i);
+            int to = i + 1 < cuts.size() ? cuts.get(i + 1) : tokens.size();
+            Parser parser = new Parser(partition(from, to));
+            parser.deferErrors();
+            tasks.add(pool.submit(parser::parse));
+            parsers.add(parser);
+        }
+
+        List<Stmt> statements = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            statements.addAll(tasks.get(i).join());
+            parsers.get(i).reportDeferredErrors();
+        }
+        return statements;
+    }
+
+    // Tokens [from, to). Every partition but the last gets an EOF of its
+    // own, placed where the next partition begins.
+    private List<Token> partition(int from, int to) {
+        List<Token> partition = new ArrayList<>(to - from + 1);
+        partition.addAll(tokens.subList(from, to));
+        if (to < tokens.size()) {
+            Token next = tokens.get(to);
+            partition.add(new Token(EOF, "", null, next.line, next.offset, -1));
+        }
+        return partition;
+    }
+
+    // Index of the first token of every partition.
+    private List<Integer> split(int partitionSize) {
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(0);
+        int next = partitionSize;
+        // The last token is EOF; a cut right before it would leave an
+        // empty partition.
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            if (i + 1 >= next && tokens.get(i).type == SEMICOLON && tokens.get(i + 1).type != EOF) {
+                cuts.add(i + 1);
+                next = i + 1 + partitionSize;
+            }
+        }
+        return cuts;
+    }
+}
@@ -0,0 +1,154 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Lexes a large source on several threads. A quick pre-pass finds newlines
+ * that fall outside any string or comment, the source is cut into chunks
+ * there, each chunk is scanned by its own Scanner, and the token lists are
+ * joined back together. Since chunks always start on a known line, line
+ * numbers come out exactly as a single Scanner would produce them.
+ */
+class ParallelScanner {
+    // Below this, splitting costs more than it saves.
+    static final int MIN_CHUNK = 1 << 16;
+
+    private static final int NORMAL = 0;
+    private static final int IN_STRING = 1;
+    private static final int IN_LINE_COMMENT = 2;
+    private static final int IN_BLOCK_COMMENT = 3;
+
+    private final char[] source;
+    private final ForkJoinPool pool;
+
+    ParallelScanner(String source, ForkJoinPool pool) {
+        this(source.toCharArray(), pool);
+    }
+
+    // Scans source in place, without copying it, so it must not change.
+    ParallelScanner(char[] source, ForkJoinPool pool) {
+        this.source = source;
+        this.pool = pool;
+    }
+
+    ParallelScanner(char[] source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    List<Token> scanTokens() {
+        int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, source.length / MIN_CHUNK));
+        List<int[]> cuts = split(source.length / chunks);
+
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        for (int i = 0; i < cuts.size(); i++) {
+            int from = cuts.get(i)[0];
+            int line = cuts.get(i)[1];
+            int to = i + 1 < cuts.size() ? cuts.get(i + 1)[0] : source.length;
+            tasks.add(pool.submit(() -> scanChunk(from, to, line)));
+        }
+
+        List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Chunk chunk = tasks.get(i).join();
+            chunk.scanner.reportDeferredErrors();
+            List<Token> scanned = chunk.tokens;
+            // Every chunk but the last ends in an EOF that isn't really there.
+            int end = i + 1 < tasks.size() ? scanned.size() - 1 : scanned.size();
+            tokens.addAll(scanned.subList(0, end));
+        }
+        return tokens;
+    }
+
+    private static class Chunk {
+        final Scanner scanner;
+        final List<Token> tokens;
+
+        Chunk(Scanner scanner, List<Token> tokens) {
+            this.scanner = scanner;
+            this.tokens = tokens;
+        }
+    }
+
+    // Scan with a chunk-local symbol table so the workers don't contend on
+    // the shared one, then move each distinct name over once.
+    private Chunk scanChunk(int from, int to, int line) {
+        SymbolTable local = new SymbolTable();
+        Scanner scanner = new Scanner(source, from, to, line, local);
+        List<Token> tokens = scanner.scanTokens();
+
+        int[] remap = new int[local.size()];
+        for (int id = 0; id < remap.length; id++) {
+            remap[id] = SymbolTable.names.intern(local.name(id));
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.symbol >= 0) {
+                int symbol = remap[token.symbol];
+                String name = SymbolTable.names.name(symbol);
+                tokens.set(i, new Token(token.type, name, name, token.line, token.offset, symbol));
+            }
+        }
+        return new Chunk(scanner, tokens);
+    }
+
+    // Returns {offset, line} for the start of every chunk. Follows the same
+    // rules as Scanner for where strings and comments begin and end, and
+    // only counts the newlines Scanner counts, so the lines agree.
+    private List<int[]> split(int chunkSize) {
+        List<int[]> cuts = new ArrayList<>();
+        cuts.add(new int[] {0, 1});
+        int state = NORMAL;
+        int line = 1;
+        int next = chunkSize;
+        int i = 0;
+        while (i < source.length) {
+            char c = source[i];
+            char n = i + 1 < source.length ? source[i + 1] : '\0';
+            switch (state) {
+                case NORMAL -> {
+                    if (c == '"') {
+                        state = IN_STRING;
+                    } else if (c == '/' && n == '/') {
+                        state = IN_LINE_COMMENT;
+                        i++;
+                    } else if (c == '/' && n == '*') {
+                        state = IN_BLOCK_COMMENT;
+                        i++;
+                    } else if (c == '\n') {
+                        line++;
+                        if (i + 1 >= next && i + 1 < source.length) {
+                            cuts.add(new int[] {i + 1, line});
+                            next = i + 1 + chunkSize;
+                        }
+                    }
+                }
+                case IN_STRING -> {
+                    if (c == '"') {
+                        state = NORMAL;
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                }
+                case IN_LINE_COMMENT -> {
+                    if (c == '\n') {
+                        state = NORMAL;
+                        continue;
+                    }
+                }
+                case IN_BLOCK_COMMENT -> {
+                    if (c == '*' || n == '/') {
+                        state = NORMAL;
+                        continue;
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                }
+            }
+            i++;
+        }
+        return cuts;
+    }
+}
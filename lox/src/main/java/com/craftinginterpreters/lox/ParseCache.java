@@ -0,0 +1,147 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Parsed scripts kept in a directory, one file per source, named by the
+ * SHA-256 of the source's bytes and charset. An entry is a short header and
+ * an AstArena; loading memory-maps it and bulk-reads the node array, so a
+ * hit costs hashing the source and no scanning or parsing at all.
+ *
+ * The header holds a format version for the arena layout and a fingerprint
+ * of the generated Expr and Stmt classes and of TokenType. Regenerating the
+ * AST with a changed grammar, or reordering token types, changes the
+ * fingerprint and turns old entries into misses instead of misreading them.
+ *
+ * Only sources that parsed without errors are stored, so errors are always
+ * reported by a real parse. The cache is best effort: an entry that cannot
+ * be read or written just means the script is parsed as usual.
+ */
+class ParseCache {
+    private static final int MAGIC = 0x4c4f5841; // "LOXA"
+    // Bump when AstArena's node layouts or written form change.
+    static final int VERSION = 1;
+    static final long grammar = fingerprint();
+
+    private final Path directory;
+
+    ParseCache(Path directory) {
+        this.directory = directory;
+    }
+
+    // Key for a source file as read with the given charset. Token offsets,
+    // and so error columns, depend on how the bytes were decoded.
+    String key(Path file, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return key(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), charset);
+        }
+    }
+
+    // Same, for a source already in memory. The buffer's position is left
+    // where it was.
+    String key(ByteBuffer source, Charset charset) {
+        MessageDigest digest = sha256();
+        digest.update(charset.name().getBytes(StandardCharsets.UTF_8));
+        digest.update(source.duplicate());
+        return hex(digest.digest());
+    }
+
+    // The statements stored under key, or null if there are none usable.
+    List<Stmt> load(String key) {
+        Path entry = directory.resolve(key + ".ast");
+        if (!Files.isRegularFile(entry)) return null;
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION || in.getLong() != grammar) {
+                return null;
+            }
+            return AstArena.read(in).toStatements();
+        } catch (IOException | RuntimeException error) {
+            return null;
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a concurrent or
+    // interrupted run never sees half an entry.
+    void store(String key, List<Stmt> statements) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(grammar);
+                AstArena.of(statements).write(out);
+            }
+            Files.move(temporary, directory.resolve(key + ".ast"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException error) {
+            // Not cached; the next run parses again. Whatever step failed,
+            // including the move, the temporary file must not stay behind.
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // Nothing more to do.
+                }
+            }
+        }
+    }
+
+    // Hash of every generated node class with its fields, and of the token
+    // types in ordinal order.
+    private static long fingerprint() {
+        StringBuilder shape = new StringBuilder();
+        for (Class<?> base : List.of(Expr.class, Stmt.class)) {
+            Class<?>[] types = base.getDeclaredClasses();
+            Arrays.sort(types, Comparator.comparing(Class::getName));
+            for (Class<?> type : types) {
+                shape.append(type.getName()).append('{');
+                Field[] fields = type.getDeclaredFields();
+                Arrays.sort(fields, Comparator.comparing(Field::getName));
+                for (Field field : fields) {
+                    shape.append(field.getType().getName()).append(' ').append(field.getName()).append(';');
+                }
+                shape.append('}');
+            }
+        }
+        for (TokenType type : TokenType.values()) {
+            shape.append(type.name()).append(',');
+        }
+        return ByteBuffer.wrap(sha256().digest(shape.toString().getBytes(StandardCharsets.UTF_8))).getLong();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            text.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return text.toString();
+    }
+}
@@ -1,21 +1,28 @@
 package com.craftinginterpreters.lox;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import javax.print.DocFlavor;
 
 import static com.craftinginterpreters.lox.TokenType.BANG;
 import static com.craftinginterpreters.lox.TokenType.BANG_EQUAL;
+import static com.craftinginterpreters.lox.TokenType.CLASS;
 import static com.craftinginterpreters.lox.TokenType.COLON;
 import static com.craftinginterpreters.lox.TokenType.COMMA;
 import static com.craftinginterpreters.lox.TokenType.EOF;
 import static com.craftinginterpreters.lox.TokenType.EQUAL;
 import static com.craftinginterpreters.lox.TokenType.EQUAL_EQUAL;
 import static com.craftinginterpreters.lox.TokenType.FALSE;
+import static com.craftinginterpreters.lox.TokenType.FOR;
+import static com.craftinginterpreters.lox.TokenType.FUN;
 import static com.craftinginterpreters.lox.TokenType.GREATER;
 import static com.craftinginterpreters.lox.TokenType.GREATER_EQUAL;
 import static com.craftinginterpreters.lox.TokenType.IDENTIFIER;
+import static com.craftinginterpreters.lox.TokenType.IF;
 import static com.craftinginterpreters.lox.TokenType.LEFT_PAREN;
 import static com.craftinginterpreters.lox.TokenType.LESS;
 import static com.craftinginterpreters.lox.TokenType.LESS_EQUAL;
@@ -25,32 +32,154 @@ import static com.craftinginterpreters.lox.TokenType.NUMBER;
 import static com.craftinginterpreters.lox.TokenType.PLUS;
 import static com.craftinginterpreters.lox.TokenType.PRINT;
 import static com.craftinginterpreters.lox.TokenType.QUESTION_MARK;
+import static com.craftinginterpreters.lox.TokenType.RETURN;
 import static com.craftinginterpreters.lox.TokenType.RIGHT_PAREN;
 import static com.craftinginterpreters.lox.TokenType.SEMICOLON;
 import static com.craftinginterpreters.lox.TokenType.SLASH;
 import static com.craftinginterpreters.lox.TokenType.STAR;
 import static com.craftinginterpreters.lox.TokenType.STRING;
 import static com.craftinginterpreters.lox.TokenType.TRUE;
+import static com.craftinginterpreters.lox.TokenType.VAR;
+import static com.craftinginterpreters.lox.TokenType.WHILE;
 
 public class Parser {
 
     private static class ParseError extends RuntimeException {
     };
-    private final List<Token> tokens;
-    private int current = 0;
+
+    // Binding power of infix operators, loosest first.
+    private enum Precedence {
+        NONE, COMMA, TERNARY, EQUALITY, COMPARISON, TERM, FACTOR, UNARY;
+
+        private static final Precedence[] all = values();
+
+        Precedence tighter() {
+            return all[ordinal() + 1];
+        }
+    }
+
+    private interface PrefixParselet {
+        Expr parse(Parser parser, Token token);
+    }
+
+    private interface InfixParselet {
+        Expr parse(Parser parser, Expr left, Token token);
+    }
+
+    // Indexed by TokenType ordinal. A token with no infix parselet has
+    // precedence NONE, which ends any operator loop.
+    private static final PrefixParselet[] prefixes = new PrefixParselet[TokenType.values().length];
+    private static final InfixParselet[] infixes = new InfixParselet[TokenType.values().length];
+    private static final Precedence[] precedences = new Precedence[TokenType.values().length];
+
+    static {
+        Arrays.fill(precedences, Precedence.NONE);
+
+        prefix(FALSE, (parser, token) -> parser.nodes.literal(false));
+        prefix(TRUE, (parser, token) -> parser.nodes.literal(true));
+        prefix(NIL, (parser, token) -> parser.nodes.literal(null));
+        prefix(NUMBER, (parser, token) -> parser.nodes.literal(token.literal));
+        prefix(STRING, (parser, token) -> parser.nodes.literal(token.literal));
+        prefix(IDENTIFIER, (parser, token) -> parser.nodes.variable(token, parser.symbol(token)));
+        prefix(LEFT_PAREN, Parser::grouping);
+        prefix(BANG, Parser::unary);
+        prefix(MINUS, Parser::unary);
+
+        infix(COMMA, Precedence.COMMA, Parser::comma);
+        infix(QUESTION_MARK, Precedence.TERNARY, Parser::ternary);
+        infix(BANG_EQUAL, Precedence.EQUALITY, Parser::binary);
+        infix(EQUAL_EQUAL, Precedence.EQUALITY, Parser::binary);
+        infix(GREATER, Precedence.COMPARISON, Parser::binary);
+        infix(GREATER_EQUAL, Precedence.COMPARISON, Parser::binary);
+        infix(LESS, Precedence.COMPARISON, Parser::binary);
+        infix(LESS_EQUAL, Precedence.COMPARISON, Parser::binary);
+        infix(MINUS, Precedence.TERM, Parser::binary);
+        infix(PLUS, Precedence.TERM, Parser::binary);
+        infix(SLASH, Precedence.FACTOR, Parser::binary);
+        infix(STAR, Precedence.FACTOR, Parser::binary);
+    }
+
+    private static void prefix(TokenType type, PrefixParselet parselet) {
+        prefixes[type.ordinal()] = parselet;
+    }
+
+    private static void infix(TokenType type, Precedence precedence, InfixParselet parselet) {
+        infixes[type.ordinal()] = parselet;
+        precedences[type.ordinal()] = precedence;
+    }
+
+    // Token classes as bitmasks over TokenType ordinals (there are fewer
+    // than 64), so membership is one shift and one and.
+    private static final long statementStarts = mask(CLASS, FUN, VAR, FOR, IF, WHILE, PRINT, RETURN);
+
+    private static long mask(TokenType... types) {
+        long mask = 0;
+        for (TokenType type : types) {
+            mask |= 1L << type.ordinal();
+        }
+        return mask;
+    }
+
+    private final TokenCursor tokens;
+    // Type of the token under the cursor, refreshed on every advance so
+    // matching never goes back to the cursor.
+    private TokenType nextType;
+    // Parse expressions with parseIterative instead of recursing.
+    private final boolean iterative;
+    // When set, errors are queued instead of reported so that partitions
+    // parsed in parallel can report them in source order.
+    private List<Runnable> deferredErrors;
+    // Where expression nodes come from; see buildWith.
+    private ExprFactory nodes = ExprFactory.plain;
 
     public Parser(List<Token> tokens) {
+        this(new ListTokenCursor(tokens));
+    }
+
+    Parser(TokenCursor tokens) {
+        this(tokens, false);
+    }
+
+    Parser(TokenCursor tokens, boolean iterative) {
         this.tokens = tokens;
+        this.nextType = tokens.peekType();
+        this.iterative = iterative;
     }
 
     List<Stmt> parse(){
         List<Stmt> statements=new ArrayList<>();
-        while(!isAtEnd()){
-            statements.add(declaration());
-        }
+        statements().forEachRemaining(statements::add);
         return statements;
     }
 
+    // Declarations one at a time, each parsed only when asked for, so they
+    // can run before the rest of the source has been read. A declaration
+    // with a syntax error comes back as null, as it does in parse().
+    Iterator<Stmt> statements(){
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !isAtEnd();
+            }
+
+            @Override
+            public Stmt next() {
+                if (isAtEnd()) {
+                    throw new NoSuchElementException();
+                }
+                return declaration();
+            }
+        };
+    }
+
+    Expr parseExpression(){
+        try {
+            return expression();
+        } catch (ParseError error) {
+            return null;
+        }
+    }
+
     private Stmt varDeclaration(){
         Token name=consume(IDENTIFIER,"Expect variable name.");
         Expr initializer=null;
@@ -58,7 +187,7 @@ public class Parser {
             initializer=expression();
         }
         consume(SEMICOLON,"Expect ';' after variable declaration.");
-        return new Stmt.Var(name,initializer);
+        return new Stmt.Var(name,symbol(name),initializer);
     }
 
 
@@ -90,100 +219,167 @@ public class Parser {
     }
     
     private Expr expression() {
-        return comma();
+        if (iterative) {
+            return parseIterative();
+        }
+        return parsePrecedence(Precedence.COMMA);
     }
 
-    private Expr comma(){
-        Expr expr=ternary();
-        while(match(COMMA)){
-            Token operator=previous();
-            expr =new Expr.Comma(expr,operator,ternary());
+    // Pratt parsing: a token's prefix parselet starts an operand, then infix
+    // operators that bind at least as tightly as the caller asked for extend
+    // it. One table lookup per token replaces walking the whole precedence
+    // ladder for every operand.
+    private Expr parsePrecedence(Precedence precedence) {
+        PrefixParselet prefix = prefixes[nextType.ordinal()];
+        if (prefix == null) {
+            throw error(peek(), "Expect expression.");
         }
-        return expr;
-    }
-    
-    private Expr ternary(){
-        Expr condition=equality();
-        if(match(QUESTION_MARK)) {
-            Expr left = expression();
-            consume(COLON,"Expect ':' after then branch");
-            Expr right=ternary();
-            condition=new Expr.Ternary(condition, left, right);
+        Expr expr = prefix.parse(this, advance());
+        while (precedence.compareTo(precedences[nextType.ordinal()]) <= 0) {
+            Token operator = advance();
+            expr = infixes[operator.type.ordinal()].parse(this, expr, operator);
         }
-        return condition;
+        return expr;
     }
 
-    private Expr equality() {
-        Expr expr = comparsion();
-        while (match(BANG_EQUAL, EQUAL_EQUAL)) {
-            Token operator = previous();
-            Expr right = comparsion();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
+    private Expr grouping(Token paren) {
+        Expr expr = expression();
+        consume(RIGHT_PAREN, "Expect ')' after expression.");
+        return nodes.grouping(expr);
     }
 
-    private Expr comparsion() {
-        Expr expr = term();
-        while (match(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
-            Token operator = previous();
-            Expr right = term();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
+    private Expr unary(Token operator) {
+        return nodes.unary(operator, parsePrecedence(Precedence.UNARY));
     }
 
-    private Expr term() {
-        Expr expr = factor();
-        while (match(MINUS, PLUS)) {
-            Token operator = previous();
-            Expr right = factor();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
+    // Left-associative: the right operand only takes tighter operators.
+    private Expr binary(Expr left, Token operator) {
+        Expr right = parsePrecedence(precedences[operator.type.ordinal()].tighter());
+        return nodes.binary(left, operator, right);
     }
 
-    private Expr factor() {
-        Expr expr = unary();
-        while (match(SLASH, STAR)) {
-            Token operator = previous();
-            Expr right = unary();
-            expr = new Expr.Binary(expr, operator, right);
-        }
-        return expr;
+    private Expr comma(Expr left, Token comma) {
+        return nodes.comma(left, comma, parsePrecedence(Precedence.TERNARY));
     }
 
-    private Expr unary() {
-        if (match(BANG, MINUS)) {
-            Token operator = previous();
-            Expr right = unary();
-            return new Expr.Unary(operator, right);
-        }
-        return primary();
+    // The then branch may be any expression; the else branch nests to the
+    // right, so a ? b : c ? d : e groups as a ? b : (c ? d : e).
+    private Expr ternary(Expr condition, Token question) {
+        Expr left = expression();
+        consume(COLON, "Expect ':' after then branch");
+        Expr right = parsePrecedence(Precedence.TERNARY);
+        return nodes.ternary(condition, left, right);
     }
 
-    private Expr primary() {
-        if (match(FALSE)) {
-            return new Expr.Literal(false);
-        }
-        if (match(TRUE)) {
-            return new Expr.Literal(true);
-        }
-        if (match(NIL)) {
-            return new Expr.Literal(null);
-        }
-        if (match(NUMBER, STRING)) {
-            return new Expr.Literal(previous().literal);
-        }
-        if (match(LEFT_PAREN)) {
-            Expr expr = expression();
-            consume(RIGHT_PAREN, "Expect ')' after expression.");
-            return new Expr.Grouping(expr);
-        }
-        if(match(IDENTIFIER)){
-            return new Expr.Variable(previous()); 
+    // What an open frame of parseIterative does with the operand that
+    // finishes it. Each corresponds to a recursive call in the Pratt parser.
+    private static final int DONE = 0;
+    private static final int GROUPING = 1;
+    private static final int UNARY = 2;
+    private static final int BINARY = 3;
+    private static final int COMMA_RIGHT = 4;
+    private static final int THEN_BRANCH = 5;
+    private static final int ELSE_BRANCH = 6;
+
+    // parsePrecedence with its recursion turned into a stack of frames. A
+    // frame stands for one pending call: the precedence it parses at, what
+    // to build once its operand is complete, and the pieces parsed so far.
+    // Nesting depth costs heap, not Java stack.
+    private Expr parseIterative() {
+        int[] kinds = new int[16];
+        Precedence[] levels = new Precedence[16];
+        Expr[] lefts = new Expr[16];
+        Expr[] thens = new Expr[16];
+        Token[] operators = new Token[16];
+        int top = 0;
+        kinds[top] = DONE;
+        levels[top++] = Precedence.COMMA;
+
+        for (;;) {
+            if (top == kinds.length) {
+                kinds = Arrays.copyOf(kinds, top * 2);
+                levels = Arrays.copyOf(levels, top * 2);
+                lefts = Arrays.copyOf(lefts, top * 2);
+                thens = Arrays.copyOf(thens, top * 2);
+                operators = Arrays.copyOf(operators, top * 2);
+            }
+            // Prefix position: groupings and unary operators open a frame
+            // for their operand.
+            if (nextType == LEFT_PAREN || nextType == BANG || nextType == MINUS) {
+                Token token = advance();
+                kinds[top] = token.type == LEFT_PAREN ? GROUPING : UNARY;
+                levels[top] = token.type == LEFT_PAREN ? Precedence.COMMA : Precedence.UNARY;
+                operators[top++] = token;
+                continue;
+            }
+            PrefixParselet prefix = prefixes[nextType.ordinal()];
+            if (prefix == null) {
+                throw error(peek(), "Expect expression.");
+            }
+            Expr expr = prefix.parse(this, advance());
+
+            // Infix position: an operator the innermost frame accepts opens a
+            // frame for its right operand; otherwise that frame is complete.
+            boolean operandNeeded = false;
+            while (!operandNeeded) {
+                Precedence next = precedences[nextType.ordinal()];
+                if (levels[top - 1].compareTo(next) <= 0) {
+                    Token operator = advance();
+                    lefts[top] = expr;
+                    operators[top] = operator;
+                    switch (operator.type) {
+                        case COMMA -> {
+                            kinds[top] = COMMA_RIGHT;
+                            levels[top] = Precedence.TERNARY;
+                        }
+                        case QUESTION_MARK -> {
+                            kinds[top] = THEN_BRANCH;
+                            levels[top] = Precedence.COMMA;
+                        }
+                        default -> {
+                            kinds[top] = BINARY;
+                            levels[top] = next.tighter();
+                        }
+                    }
+                    top++;
+                    operandNeeded = true;
+                    continue;
+                }
+
+                int frame = --top;
+                Expr left = lefts[frame];
+                lefts[frame] = null;
+                switch (kinds[frame]) {
+                    case DONE -> {
+                        return expr;
+                    }
+                    case GROUPING -> {
+                        consume(RIGHT_PAREN, "Expect ')' after expression.");
+                        expr = nodes.grouping(expr);
+                    }
+                    case UNARY ->
+                        expr = nodes.unary(operators[frame], expr);
+                    case BINARY ->
+                        expr = nodes.binary(left, operators[frame], expr);
+                    case COMMA_RIGHT ->
+                        expr = nodes.comma(left, operators[frame], expr);
+                    case THEN_BRANCH -> {
+                        // Reuse the frame for the else branch.
+                        consume(COLON, "Expect ':' after then branch");
+                        kinds[frame] = ELSE_BRANCH;
+                        levels[frame] = Precedence.TERNARY;
+                        lefts[frame] = left;
+                        thens[frame] = expr;
+                        top++;
+                        operandNeeded = true;
+                    }
+                    case ELSE_BRANCH -> {
+                        expr = nodes.ternary(left, thens[frame], expr);
+                        thens[frame] = null;
+                    }
+                }
+            }
         }
-        throw  error(peek(),"Expect expression.");
     }
 
     private Token consume(TokenType type, String message) {
@@ -193,45 +389,74 @@ public class Parser {
         throw error(peek(), message);
     }
 
-    private boolean match(TokenType... types) {
-        for (TokenType type : types) {
-            if (check(type)) {
-                advance();
-                return true;
-            }
+    private boolean match(TokenType type) {
+        if (nextType != type) {
+            return false;
         }
-        return false;
+        advance();
+        return true;
+    }
+
+    // Tokens from a scanner arrive already interned; hand-built ones don't.
+    private int symbol(Token name) {
+        if (name.symbol >= 0) {
+            return name.symbol;
+        }
+        return SymbolTable.names.intern(name.lexeme);
     }
 
     private ParseError error(Token token, String message) {
-        Lox.error(token, message);
+        if (deferredErrors == null) {
+            Lox.error(token, message);
+        } else {
+            deferredErrors.add(() -> Lox.error(token, message));
+        }
         return new ParseError();
     }
 
-    private boolean check(TokenType type) {
-        if (isAtEnd()) {
-            return false;
+    // Build expressions through nodes, e.g. ExprFactory.sharing to share
+    // repeated constant subtrees between statements.
+    void buildWith(ExprFactory nodes) {
+        this.nodes = nodes;
+    }
+
+    void deferErrors() {
+        deferredErrors = new ArrayList<>();
+    }
+
+    void reportDeferredErrors() {
+        if (deferredErrors != null) {
+            deferredErrors.forEach(Runnable::run);
+            deferredErrors.clear();
         }
-        return tokens.get(current).type == type;
+    }
+
+    private boolean check(TokenType type) {
+        return nextType == type;
+    }
+
+    private boolean check(long types) {
+        return (types & 1L << nextType.ordinal()) != 0;
     }
 
     private Token advance() {
-        if (!isAtEnd()) {
-            current++;
+        if (nextType != EOF) {
+            tokens.advance();
+            nextType = tokens.peekType();
         }
         return previous();
     }
 
     private boolean isAtEnd() {
-        return peek().type == EOF;
+        return nextType == EOF;
     }
 
     private Token peek() {
-        return tokens.get(current);
+        return tokens.peek();
     }
 
     private Token previous() {
-        return tokens.get(current - 1);
+        return tokens.previous();
     }
 
     private void synchronize() {
@@ -240,10 +465,8 @@ public class Parser {
             if (previous().type == SEMICOLON) {
                 return;
             }
-            switch (peek().type) {
-                case CLASS, FUN, VAR, FOR, IF, WHILE, PRINT, RETURN -> {
-                    return;
-                }
+            if (check(statementStarts)) {
+                return;
             }
             advance();
         }
@@ -0,0 +1,109 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/*
+ * Register code for a list of statements, written by RegisterCompiler and
+ * run by RegisterVM. An instruction is an opcode followed by int operands:
+ * registers, a constant index (k), a symbol id or an absolute jump target.
+ * Registers are numbered from 0 and only hold temporaries; globals stay in
+ * the Environment.
+ *
+ * The _K superinstructions take their right operand straight from the
+ * constant pool. A print is fused with the instruction that makes its
+ * value: PRINT_K and PRINT_GET print a constant or a variable, and
+ * PRINT_BINARY and PRINT_BINARY_K apply a binary operator (its register
+ * opcode as the first operand) and print the result, without storing it.
+ */
+class RegisterCode extends CompiledCode {
+    static final int LOAD = 0;           // d, k        r[d] = k
+    static final int GET = 1;            // d, symbol   r[d] = global
+    static final int DEFINE = 2;         // symbol, s   global = r[s]
+    static final int PRINT = 3;          // s
+    static final int PRINT_K = 4;        // k
+    static final int PRINT_GET = 5;      // symbol
+    static final int PRINT_BINARY = 6;   // op, a, b    print r[a] op r[b]
+    static final int PRINT_BINARY_K = 7; // op, a, k    print r[a] op k
+    static final int NEGATE = 8;         // d, s
+    static final int NOT = 9;            // d, s
+    static final int ADD = 10;           // d, a, b     r[d] = r[a] + r[b]
+    static final int SUBTRACT = 11;
+    static final int MULTIPLY = 12;
+    static final int DIVIDE = 13;
+    static final int EQUAL = 14;
+    static final int NOT_EQUAL = 15;
+    static final int GREATER = 16;
+    static final int GREATER_EQUAL = 17;
+    static final int LESS = 18;
+    static final int LESS_EQUAL = 19;
+    static final int ADD_K = 20;         // d, a, k     r[d] = r[a] + k
+    static final int EQUAL_K = 21;
+    static final int NOT_EQUAL_K = 22;
+    static final int GREATER_K = 23;
+    static final int GREATER_EQUAL_K = 24;
+    static final int LESS_K = 25;
+    static final int LESS_EQUAL_K = 26;
+    static final int JUMP = 27;          // target
+    static final int JUMP_IF_FALSE = 28; // s, target
+    static final int RETURN = 29;
+
+    private static final String[] names = {
+        "LOAD", "GET", "DEFINE", "PRINT", "PRINT_K", "PRINT_GET", "PRINT_BINARY", "PRINT_BINARY_K",
+        "NEGATE", "NOT", "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "EQUAL", "NOT_EQUAL",
+        "GREATER", "GREATER_EQUAL", "LESS", "LESS_EQUAL",
+        "ADD_K", "EQUAL_K", "NOT_EQUAL_K", "GREATER_K", "GREATER_EQUAL_K", "LESS_K", "LESS_EQUAL_K",
+        "JUMP", "JUMP_IF_FALSE", "RETURN"
+    };
+
+    // Operand count of each opcode.
+    private static final int[] widths = {
+        2, 2, 2, 1, 1, 1, 3, 3,
+        2, 2, 3, 3, 3, 3, 3, 3,
+        3, 3, 3, 3,
+        3, 3, 3, 3, 3, 3, 3,
+        1, 2, 0
+    };
+
+    int[] code = new int[64];
+    // Number of registers the code uses.
+    int registers = 1;
+
+    // Write an instruction, returning its offset.
+    int write(int op, int... operands) {
+        if (count + 1 + operands.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, count + 1 + operands.length));
+        }
+        int offset = count;
+        code[count++] = op;
+        for (int operand : operands) {
+            code[count++] = operand;
+        }
+        return offset;
+    }
+
+    // One instruction per line, for tests and debugging.
+    String disassemble() {
+        StringBuilder text = new StringBuilder();
+        for (int offset = 0; offset < count; offset += 1 + widths[code[offset]]) {
+            int op = code[offset];
+            text.append(String.format("%04d %s", offset, names[op]));
+            for (int i = 1; i <= widths[op]; i++) {
+                text.append(i == 1 ? " " : ", ").append(operand(op, i, code[offset + i]));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private String operand(int op, int index, int operand) {
+        if (op >= PRINT_BINARY && op <= PRINT_BINARY_K && index == 1) return names[operand];
+        boolean constant = op == PRINT_K || (op == LOAD && index == 2)
+                || ((op == PRINT_BINARY_K || op >= ADD_K && op <= LESS_EQUAL_K) && index == 3);
+        boolean symbol = op == PRINT_GET || (op == GET && index == 2) || (op == DEFINE && index == 1);
+        boolean target = op == JUMP || (op == JUMP_IF_FALSE && index == 2);
+        if (constant) return constants[operand] == null ? "nil" : String.valueOf(constants[operand]);
+        if (symbol) return SymbolTable.names.name(operand);
+        if (target) return String.format("-> %04d", operand);
+        return "r" + operand;
+    }
+}
@@ -0,0 +1,197 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+/*
+ * Compiles statements to RegisterCode. Each expression is compiled into a
+ * destination register, with its operands in the registers above it, so a
+ * binary operator becomes one ADD d, d, d+1 instead of a stack VM's push,
+ * push, pop-pop-push. A literal right operand is folded into a _K
+ * instruction. A print of a literal, a variable or a binary expression
+ * becomes one instruction that also does the printing: PRINT_K, PRINT_GET,
+ * or PRINT_BINARY(_K) in place of the final operator. Code runs in the
+ * Interpreter's evaluation order, and like it the compiler recurses on the
+ * tree.
+ */
+class RegisterCompiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private final RegisterCode code = new RegisterCode();
+    // Register the expression being visited leaves its value in.
+    private int dest = 0;
+
+    static RegisterCode compile(List<Stmt> statements) {
+        RegisterCompiler compiler = new RegisterCompiler();
+        for (Stmt statement : statements) {
+            statement.accept(compiler);
+        }
+        compiler.code.write(RegisterCode.RETURN);
+        return compiler.code;
+    }
+
+    static RegisterCode compile(Stmt statement) {
+        return compile(List.of(statement));
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        compile(stmt.expression, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        Expr expression = unwrap(stmt.expression);
+        if (expression instanceof Expr.Literal literal) {
+            code.write(RegisterCode.PRINT_K, code.constant(literal.value));
+        } else if (expression instanceof Expr.Variable variable) {
+            code.site(variable.name);
+            code.write(RegisterCode.PRINT_GET, variable.symbol);
+        } else if (expression instanceof Expr.Binary binary) {
+            compile(binary.left, 0);
+            Expr right = unwrap(binary.right);
+            if (right instanceof Expr.Literal literal) {
+                code.site(binary.operator);
+                code.write(RegisterCode.PRINT_BINARY_K, registerOp(binary.operator), 0, code.constant(literal.value));
+            } else {
+                compile(right, 1);
+                code.site(binary.operator);
+                code.write(RegisterCode.PRINT_BINARY, registerOp(binary.operator), 0, 1);
+            }
+        } else {
+            compile(expression, 0);
+            code.write(RegisterCode.PRINT, 0);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer == null) {
+            code.write(RegisterCode.LOAD, 0, code.constant(null));
+        } else {
+            compile(stmt.initializer, 0);
+        }
+        code.write(RegisterCode.DEFINE, stmt.symbol, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        code.write(RegisterCode.LOAD, dest, code.constant(expr.value));
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        code.site(expr.name);
+        code.write(RegisterCode.GET, dest, expr.symbol);
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        expr.expression.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitCommaExpr(Expr.Comma expr) {
+        expr.right.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        int d = dest;
+        compile(expr.right, d);
+        switch (expr.operator.type) {
+            case MINUS -> {
+                code.site(expr.operator);
+                code.write(RegisterCode.NEGATE, d, d);
+            }
+            case BANG -> code.write(RegisterCode.NOT, d, d);
+            default -> throw new IllegalStateException("Unexpected unary operator " + expr.operator.type);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        int d = dest;
+        compile(expr.left, d);
+        Expr right = unwrap(expr.right);
+        int constantOp = constantOp(expr.operator.type);
+        if (constantOp >= 0 && right instanceof Expr.Literal literal) {
+            code.site(expr.operator);
+            code.write(constantOp, d, d, code.constant(literal.value));
+            return null;
+        }
+        compile(right, d + 1);
+        code.site(expr.operator);
+        code.write(registerOp(expr.operator), d, d, d + 1);
+        return null;
+    }
+
+    @Override
+    public Void visitTernaryExpr(Expr.Ternary expr) {
+        int d = dest;
+        compile(expr.condition, d);
+        int elseJump = code.write(RegisterCode.JUMP_IF_FALSE, d, 0);
+        compile(expr.left, d);
+        int endJump = code.write(RegisterCode.JUMP, 0);
+        code.code[elseJump + 2] = code.count;
+        compile(expr.right, d);
+        code.code[endJump + 1] = code.count;
+        return null;
+    }
+
+    private void compile(Expr expr, int register) {
+        code.registers = Math.max(code.registers, register + 1);
+        int saved = dest;
+        dest = register;
+        expr.accept(this);
+        dest = saved;
+    }
+
+    private static int registerOp(Token operator) {
+        return switch (operator.type) {
+            case PLUS -> RegisterCode.ADD;
+            case MINUS -> RegisterCode.SUBTRACT;
+            case STAR -> RegisterCode.MULTIPLY;
+            case SLASH -> RegisterCode.DIVIDE;
+            case EQUAL_EQUAL -> RegisterCode.EQUAL;
+            case BANG_EQUAL -> RegisterCode.NOT_EQUAL;
+            case GREATER -> RegisterCode.GREATER;
+            case GREATER_EQUAL -> RegisterCode.GREATER_EQUAL;
+            case LESS -> RegisterCode.LESS;
+            case LESS_EQUAL -> RegisterCode.LESS_EQUAL;
+            default -> throw new IllegalStateException("Unexpected binary operator " + operator.type);
+        };
+    }
+
+    // Operators with a superinstruction for a literal right operand, or -1.
+    private static int constantOp(TokenType operator) {
+        return switch (operator) {
+            case PLUS -> RegisterCode.ADD_K;
+            case EQUAL_EQUAL -> RegisterCode.EQUAL_K;
+            case BANG_EQUAL -> RegisterCode.NOT_EQUAL_K;
+            case GREATER -> RegisterCode.GREATER_K;
+            case GREATER_EQUAL -> RegisterCode.GREATER_EQUAL_K;
+            case LESS -> RegisterCode.LESS_K;
+            case LESS_EQUAL -> RegisterCode.LESS_EQUAL_K;
+            default -> -1;
+        };
+    }
+
+    // What a grouping or comma evaluates to.
+    private static Expr unwrap(Expr expr) {
+        for (;;) {
+            if (expr instanceof Expr.Grouping grouping) {
+                expr = grouping.expression;
+            } else if (expr instanceof Expr.Comma comma) {
+                expr = comma.right;
+            } else {
+                return expr;
+            }
+        }
+    }
+}
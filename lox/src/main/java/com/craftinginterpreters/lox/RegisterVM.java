@@ -0,0 +1,142 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Objects;
+
+/*
+ * Runs RegisterCode with one dispatch loop over its int array and a
+ * register file allocated once per run, at the size the compiler worked
+ * out. The register and _K forms of an operator share one binary(), which
+ * works out two numbers inline.
+ */
+class RegisterVM {
+    // Globals live here, across runs, like the Interpreter's environment.
+    private final Environment environment = new Environment();
+    private final Interpreter operators = new Interpreter();
+
+    boolean run(RegisterCode code) {
+        return Lox.runReported(() -> execute(code));
+    }
+
+    private void execute(RegisterCode program) {
+        int[] code = program.code;
+        Object[] constants = program.constants;
+        Object[] r = new Object[program.registers];
+        int ip = 0;
+        for (;;) {
+            int at = ip;
+            switch (code[ip]) {
+                case RegisterCode.LOAD -> {
+                    r[code[ip + 1]] = constants[code[ip + 2]];
+                    ip += 3;
+                }
+                case RegisterCode.GET -> {
+                    r[code[ip + 1]] = get(program, at, code[ip + 2]);
+                    ip += 3;
+                }
+                case RegisterCode.DEFINE -> {
+                    environment.define(code[ip + 1], r[code[ip + 2]]);
+                    ip += 3;
+                }
+                case RegisterCode.PRINT -> {
+                    System.out.println(operators.stringify(r[code[ip + 1]]));
+                    ip += 2;
+                }
+                case RegisterCode.PRINT_K -> {
+                    System.out.println(operators.stringify(constants[code[ip + 1]]));
+                    ip += 2;
+                }
+                case RegisterCode.PRINT_GET -> {
+                    System.out.println(operators.stringify(get(program, at, code[ip + 1])));
+                    ip += 2;
+                }
+                case RegisterCode.PRINT_BINARY -> {
+                    Object value = binary(program, at, code[ip + 1], r[code[ip + 2]], r[code[ip + 3]]);
+                    System.out.println(operators.stringify(value));
+                    ip += 4;
+                }
+                case RegisterCode.PRINT_BINARY_K -> {
+                    Object value = binary(program, at, code[ip + 1], r[code[ip + 2]], constants[code[ip + 3]]);
+                    System.out.println(operators.stringify(value));
+                    ip += 4;
+                }
+                case RegisterCode.NEGATE -> {
+                    Object value = r[code[ip + 2]];
+                    r[code[ip + 1]] = value instanceof Double number ? -number
+                            : operators.unary(program.token(at), value);
+                    ip += 3;
+                }
+                case RegisterCode.NOT -> {
+                    r[code[ip + 1]] = !operators.isTruthy(r[code[ip + 2]]);
+                    ip += 3;
+                }
+                case RegisterCode.ADD, RegisterCode.SUBTRACT, RegisterCode.MULTIPLY, RegisterCode.DIVIDE,
+                        RegisterCode.EQUAL, RegisterCode.NOT_EQUAL, RegisterCode.GREATER,
+                        RegisterCode.GREATER_EQUAL, RegisterCode.LESS, RegisterCode.LESS_EQUAL -> {
+                    r[code[ip + 1]] = binary(program, at, code[ip], r[code[ip + 2]], r[code[ip + 3]]);
+                    ip += 4;
+                }
+                case RegisterCode.ADD_K -> {
+                    Object a = r[code[ip + 2]];
+                    Object b = constants[code[ip + 3]];
+                    r[code[ip + 1]] = a instanceof Double x && b instanceof Double y ? (Object) (x + y)
+                            : operators.binary(program.token(at), a, b);
+                    ip += 4;
+                }
+                case RegisterCode.EQUAL_K, RegisterCode.NOT_EQUAL_K, RegisterCode.GREATER_K,
+                        RegisterCode.GREATER_EQUAL_K, RegisterCode.LESS_K, RegisterCode.LESS_EQUAL_K -> {
+                    // Each _K comparison is its register form shifted by seven.
+                    r[code[ip + 1]] = binary(program, at, code[ip] - 7, r[code[ip + 2]], constants[code[ip + 3]]);
+                    ip += 4;
+                }
+                case RegisterCode.JUMP -> ip = code[ip + 1];
+                case RegisterCode.JUMP_IF_FALSE -> ip = operators.isTruthy(r[code[ip + 1]]) ? ip + 3 : code[ip + 2];
+                case RegisterCode.RETURN -> {
+                    return;
+                }
+                default -> throw new IllegalStateException("Bad opcode " + code[at] + " at " + at);
+            }
+        }
+    }
+
+    private Object get(RegisterCode program, int at, int symbol) {
+        Object value = environment.find(symbol);
+        return value != Environment.UNDEFINED ? value : environment.get(program.token(at), symbol);
+    }
+
+    private Object binary(RegisterCode program, int at, int op, Object a, Object b) {
+        if (op == RegisterCode.EQUAL) return Objects.equals(a, b);
+        if (op == RegisterCode.NOT_EQUAL) return !Objects.equals(a, b);
+        if (a instanceof Double boxedX && b instanceof Double boxedY) {
+            double x = boxedX;
+            double y = boxedY;
+            switch (op) {
+                case RegisterCode.ADD -> {
+                    return x + y;
+                }
+                case RegisterCode.SUBTRACT -> {
+                    return x - y;
+                }
+                case RegisterCode.MULTIPLY -> {
+                    return x * y;
+                }
+                // A zero divisor goes the slow way to raise the error.
+                case RegisterCode.DIVIDE -> {
+                    if (Double.doubleToLongBits(y) != 0L) return x / y;
+                }
+                case RegisterCode.GREATER -> {
+                    return x > y;
+                }
+                case RegisterCode.GREATER_EQUAL -> {
+                    return x >= y;
+                }
+                case RegisterCode.LESS -> {
+                    return x < y;
+                }
+                case RegisterCode.LESS_EQUAL -> {
+                    return x <= y;
+                }
+            }
+        }
+        return operators.binary(program.token(at), a, b);
+    }
+}
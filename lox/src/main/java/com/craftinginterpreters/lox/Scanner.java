@@ -1,193 +1,334 @@
 package com.craftinginterpreters.lox;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-import static com.craftinginterpreters.lox.TokenType.BANG;
-import static com.craftinginterpreters.lox.TokenType.BANG_EQUAL;
-import static com.craftinginterpreters.lox.TokenType.COLON;
-import static com.craftinginterpreters.lox.TokenType.COMMA;
-import static com.craftinginterpreters.lox.TokenType.DOT;
 import static com.craftinginterpreters.lox.TokenType.EOF;
-import static com.craftinginterpreters.lox.TokenType.EQUAL;
-import static com.craftinginterpreters.lox.TokenType.EQUAL_EQUAL;
-import static com.craftinginterpreters.lox.TokenType.GREATER;
-import static com.craftinginterpreters.lox.TokenType.GREATER_EQUAL;
 import static com.craftinginterpreters.lox.TokenType.IDENTIFIER;
-import static com.craftinginterpreters.lox.TokenType.LEFT_BRACE;
-import static com.craftinginterpreters.lox.TokenType.LEFT_PAREN;
-import static com.craftinginterpreters.lox.TokenType.LESS;
-import static com.craftinginterpreters.lox.TokenType.LESS_EQUAL;
-import static com.craftinginterpreters.lox.TokenType.MINUS;
 import static com.craftinginterpreters.lox.TokenType.NUMBER;
-import static com.craftinginterpreters.lox.TokenType.PLUS;
-import static com.craftinginterpreters.lox.TokenType.QUESTION_MARK;
-import static com.craftinginterpreters.lox.TokenType.RIGHT_BRACE;
-import static com.craftinginterpreters.lox.TokenType.RIGHT_PAREN;
-import static com.craftinginterpreters.lox.TokenType.SEMICOLON;
-import static com.craftinginterpreters.lox.TokenType.SLASH;
-import static com.craftinginterpreters.lox.TokenType.STAR;
 import static com.craftinginterpreters.lox.TokenType.STRING;
 
 class Scanner {
 
-    private final String source;
+    private static final int BUFFER_SIZE = 8192;
+
+    // Characters are read through a window over the source. When scanning a
+    // String the window is the whole source; when scanning a Reader it only
+    // holds the current token and whatever has been read past it, so memory
+    // stays bounded by the longest token rather than by the file.
+    private final Reader reader;
+    private char[] buffer;
+    private int bufferOffset = 0;
+    private int bufferLength;
+    private boolean exhausted;
+    // Set while a comment is skipped. A comment makes no token, so fill()
+    // lets go of everything before current, not before start, and a long
+    // comment never has to fit in the window.
+    private boolean inComment;
     private final List<Token> tokens = new ArrayList<>();
-    private int start = 0;
-    private int current = 0;
+    private Token next;
+    private TokenBuffer sink;
+    // String literals are deduplicated per scan, hashed straight from the
+    // source. The table is emptied whenever it fills, so a long stream of
+    // distinct literals isn't all kept alive. Names go through the shared
+    // SymbolTable.names so their ids line up with the interpreter's.
+    private static final int MAX_STRINGS = 1024;
+    private final SymbolTable strings = new SymbolTable();
+    private SymbolTable names = SymbolTable.names;
+    // When set, errors are queued instead of reported so that chunks lexed
+    // in parallel can report them in source order.
+    private List<Runnable> deferredErrors;
+    // Source offsets of the current token, shared with subclasses that
+    // supply their own characters.
+    int start = 0;
+    int current = 0;
     private int line = 1;
+    // In-memory sources build this on first use with one newline search;
+    // a Reader's source isn't kept, so its line starts are recorded as the
+    // scanner passes them, in a window of the most recent lines.
+    private static final int READER_LINES = 1 << 16;
+    private LineIndex lines;
 
-    private static final Map<String, TokenType> keywords;
-
-    static {
-        keywords = new HashMap<>();
-        keywords.put("and", TokenType.AND);
-        keywords.put("class", TokenType.CLASS);
-        keywords.put("else", TokenType.ELSE);
-        keywords.put("false", TokenType.FALSE);
-        keywords.put("for", TokenType.FOR);
-        keywords.put("fun", TokenType.FUN);
-        keywords.put("if", TokenType.IF);
-        keywords.put("nil", TokenType.NIL);
-        keywords.put("or", TokenType.OR);
-        keywords.put("print", TokenType.PRINT);
-        keywords.put("return", TokenType.RETURN);
-        keywords.put("super", TokenType.SUPER);
-        keywords.put("this", TokenType.THIS);
-        keywords.put("true", TokenType.TRUE);
-        keywords.put("var", TokenType.VAR);
-        keywords.put("while", TokenType.WHILE);
-    }
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
     Scanner(String source) {
-        this.source = source;
+        this(source.toCharArray());
+    }
+
+    // Scans source in place, without copying it, so it must not change.
+    Scanner(char[] source) {
+        this.reader = null;
+        this.buffer = source;
+        this.bufferLength = buffer.length;
+        this.exhausted = true;
+    }
+
+    // For subclasses that override the character access methods below.
+    Scanner() {
+        this.reader = null;
+        this.buffer = new char[0];
+        this.bufferLength = 0;
+        this.exhausted = true;
+    }
+
+    // For subclasses that supply their own characters, starting at offset
+    // from on the given line.
+    Scanner(int from, int line) {
+        this();
+        this.start = from;
+        this.current = from;
+        this.line = line;
+    }
+
+    // Scans source[from, to) as if it began on the given line, interning
+    // names into a private table. Used by ParallelScanner for one chunk.
+    Scanner(char[] source, int from, int to, int line, SymbolTable names) {
+        this.reader = null;
+        this.buffer = source;
+        this.bufferLength = to;
+        this.exhausted = true;
+        this.start = from;
+        this.current = from;
+        this.line = line;
+        this.names = names;
+        this.deferredErrors = new ArrayList<>();
+    }
+
+    Scanner(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.bufferLength = 0;
+        this.exhausted = false;
+        this.lines = new LineIndex(READER_LINES);
+    }
+
+    synchronized LineIndex lines() {
+        if (lines == null) {
+            lines = LineIndex.of(buffer, bufferLength);
+        }
+        return lines;
+    }
+
+    private void newline() {
+        line++;
+        if (reader != null) {
+            lines.add(current);
+        }
     }
 
     List<Token> scanTokens() {
+        Token token;
+        do {
+            token = nextToken();
+            tokens.add(token);
+        } while (token.type != EOF);
+        return tokens;
+    }
+
+    /*
+     * Scan the whole source into a compact TokenBuffer without creating a
+     * Token or lexeme per token. Needs the source kept in memory, so it is
+     * not available when scanning a Reader.
+     */
+    TokenBuffer scanTokenBuffer() {
+        if (reader != null) {
+            throw new IllegalStateException("Cannot buffer tokens from a Reader.");
+        }
+        sink = new TokenBuffer(this, bufferLength / 4);
         while (!isAtEnd()) {
-            scanToken();
             start = current;
+            scanToken();
         }
+        start = current;
         addToken(EOF);
-        return tokens;
+        TokenBuffer buffer = sink;
+        sink = null;
+        return buffer;
+    }
+
+    /*
+     * Pull the next token from the source. Once the source is exhausted
+     * every further call returns an EOF token.
+     */
+    Token nextToken() {
+        next = null;
+        while (next == null) {
+            start = current;
+            if (isAtEnd()) {
+                addToken(EOF);
+            } else {
+                scanToken();
+            }
+        }
+        return next;
     }
 
+    // Run the generated DFA from the current character, remembering the last
+    // accepting state so a longer attempt that fails (like "1.") backs off to
+    // the longest token. String and line comment bodies are skipped in bulk.
     void scanToken() {
-        char c = advance();
-        switch (c) {
-            //Single
-            case '(' ->
-                addToken(LEFT_PAREN);
-            case ')' ->
-                addToken(RIGHT_PAREN);
-            case '{' ->
-                addToken(LEFT_BRACE);
-            case '}' ->
-                addToken(RIGHT_BRACE);
-            case ',' ->
-                addToken(COMMA);
-            case '.' ->
-                addToken(DOT);
-            case '+' ->
-                addToken(PLUS);
-            case '-' ->
-                addToken(MINUS);
-            case ';' ->
-                addToken(SEMICOLON);
-            case '*' ->
-                addToken(STAR);
-            case ':'->
-                addToken(COLON);
-            case '?'->
-                addToken(QUESTION_MARK);
-            //Single or Double
-            case '!' ->
-                addToken(match('=') ? BANG_EQUAL : BANG);
-            case '=' ->
-                addToken(match('=') ? EQUAL_EQUAL : EQUAL);
-            case '>' ->
-                addToken(match('=') ? GREATER_EQUAL : GREATER);
-            case '<' ->
-                addToken(match('=') ? LESS_EQUAL : LESS);
-            case '/' -> {
-                if (match('/')) {
-                    while (peek() != '\n' && (!isAtEnd())) {
-                        advance();
-                    }
-                } else if (match('*')) {
-                    while (peek() != '*' && peekNext() != '/' && !isAtEnd()) {
-                        advance();
-                    }
-                } else {
-                    addToken(SLASH);
-                }
+        int state = ScannerTable.START;
+        int accepted = ScannerTable.DEAD;
+        int end = current;
+        while (!isAtEnd()) {
+            char c = peek();
+            state = ScannerTable.NEXT[state * ScannerTable.CLASS_COUNT + (c < 128 ? ScannerTable.CLASSES[c] : 0)];
+            if (state == ScannerTable.DEAD) {
+                break;
             }
-            case '\n' ->
-                line++;
-            case ' ', '\t' -> {
+            advance();
+            if (ScannerTable.ACTIONS[state] != 0) {
+                accepted = state;
+                end = current;
             }
-            case '"' ->
+        }
+        current = end;
+
+        switch (ScannerTable.ACTIONS[accepted]) {
+            case ScannerTable.TOKEN ->
+                addToken(ScannerTable.TYPES[accepted]);
+            case ScannerTable.KEYWORD ->
+                keyword(ScannerTable.TYPES[accepted], ScannerTable.LEXEMES[accepted]);
+            case ScannerTable.IDENTIFIER ->
+                identifier();
+            case ScannerTable.NUMBER ->
+                number();
+            case ScannerTable.STRING ->
                 string();
-            default -> {
-                if (isDigit(c)) {
-                    number();
-                } else if (isAlpha(c)) {
-                    identifier();
-                } else {
-                    Lox.error(line, "Unexpected character: " + c);
+            case ScannerTable.LINE_COMMENT -> {
+                inComment = true;
+                skipUntil('\n', '\n');
+                inComment = false;
+            }
+            // One char at a time: the body has to count newlines and stop at
+            // a '*' or before a '/', more than skipUntil can look for at once.
+            case ScannerTable.BLOCK_COMMENT -> {
+                inComment = true;
+                while (peek() != '*' && peekNext() != '/' && !isAtEnd()) {
+                    if (advance() == '\n') {
+                        newline();
+                    }
                 }
+                inComment = false;
             }
+            case ScannerTable.NEWLINE ->
+                newline();
+            case ScannerTable.BLANK ->
+                skipBlanks();
+            default ->
+                error("Unexpected character: " + advance());
         }
     }
 
-    boolean match(char expected) {
-        if (isAtEnd()) {
-            return false;
+    private void error(String message) {
+        if (deferredErrors == null) {
+            Lox.error(line, column(start, line), message);
+        } else {
+            int at = line;
+            int offset = start;
+            deferredErrors.add(() -> Lox.error(at, column(offset, at), message));
         }
-        if (peek() != expected) {
-            return false; 
-        }else {
-            advance();
-            return true;
+    }
+
+    // Column, in chars, of the token at offset in an error on the given line.
+    int column(int offset, int line) {
+        return lines().column(offset, line);
+    }
+
+    void reportDeferredErrors() {
+        if (deferredErrors != null) {
+            deferredErrors.forEach(Runnable::run);
+            deferredErrors.clear();
         }
     }
 
     void string() {
-        char c;
-        while ((c = peek()) != '"') {
+        for (;;) {
+            skipUntil('"', '\n');
             if (isAtEnd()) {
-                Lox.error(line, "Unterminated string.");
+                error("Unterminated string.");
                 return;
-            } else if (c == '\n') {
-                line++;
             }
-            advance();
+            if (advance() == '"') {
+                break;
+            }
+            newline();
+        }
+        if (sink != null) {
+            addToken(STRING);
+        } else {
+            if (strings.size() == MAX_STRINGS) {
+                strings.clear();
+            }
+            addToken(STRING, strings.name(strings.intern(this, start + 1, current - 1)));
         }
-        advance();
-        addToken(STRING, source.substring(start + 1, current - 1));
     }
 
     void number() {
-        while (isDigit(peek())) {
-            advance();
+        double value = numberValue();
+        if (sink != null) {
+            sink.add(NUMBER, start, current - start, value);
+        } else {
+            addToken(NUMBER, value);
         }
-        if (peek() == '.' && isDigit(peekNext())) {
-            advance();
-            while (isDigit(peek())) {
-                advance();
+    }
+
+    // Convert the current number lexeme straight from the source. With at
+    // most 15 significant digits and 22 fraction digits both the digits and
+    // the power of ten are exact doubles, so one division is correctly
+    // rounded. Longer literals go through the JDK's exact parser.
+    private double numberValue() {
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = 0;
+        boolean inFraction = false;
+        for (int i = start; i < current; i++) {
+            char c = charAt(i);
+            if (c == '.') {
+                inFraction = true;
+                continue;
+            }
+            if (inFraction) {
+                fraction++;
             }
+            if (mantissa == 0 && c == '0') {
+                continue;
+            }
+            if (++digits > MAX_EXACT_DIGITS) {
+                return Double.parseDouble(text(start, current));
+            }
+            mantissa = mantissa * 10 + (c - '0');
+        }
+        if (fraction >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(text(start, current));
+        }
+        return fraction == 0 ? mantissa : mantissa / POWERS_OF_TEN[fraction];
+    }
+
+    void keyword(TokenType type, String lexeme) {
+        if (sink != null) {
+            addToken(type);
+        } else {
+            addToken(type, lexeme, lexeme, -1);
         }
-        addToken(NUMBER, Double.valueOf(source.substring(start, current)));
     }
 
     void identifier() {
-        while (isAlphaNumeric(peek())) {
-            advance();
+        if (sink != null) {
+            addToken(IDENTIFIER);
+        } else {
+            int symbol = names.intern(this, start, current);
+            String vaule = names.name(symbol);
+            addToken(IDENTIFIER, vaule, vaule, symbol);
         }
-        String vaule = source.substring(start, current);
-        addToken(keywords.get(vaule) != null ? keywords.get(vaule) : IDENTIFIER, vaule);
     }
 
     void addToken(TokenType type) {
@@ -195,43 +336,112 @@ class Scanner {
     }
 
     void addToken(TokenType type, Object literal) {
-        String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+        if (sink != null) {
+            sink.add(type, start, current - start, 0);
+            return;
+        }
+        next = new Token(type, text(start, current), literal, line, start, -1);
     }
 
-    private boolean isAtEnd() {
-        return current >= source.length();
+    private void addToken(TokenType type, String lexeme, Object literal, int symbol) {
+        next = new Token(type, lexeme, literal, line, start, symbol);
     }
 
-    private char advance() {
-        return source.charAt(current++);
+    // True if charAt gives the source's UTF-8 bytes rather than its chars.
+    boolean readsBytes() {
+        return false;
     }
 
-    private char peek() {
+    String text(int from, int to) {
+        return new String(buffer, from - bufferOffset, to - from);
+    }
+
+    char charAt(int index) {
+        return buffer[index - bufferOffset];
+    }
+
+    boolean isAtEnd() {
+        return !available(current);
+    }
+
+    char advance() {
+        available(current);
+        return buffer[current++ - bufferOffset];
+    }
+
+    char peek() {
         if (isAtEnd()) {
             return '\0';
         }
-        return source.charAt(current);
+        return buffer[current - bufferOffset];
     }
 
-    private char peekNext() {
-        if (current + 1 >= source.length()) {
+    char peekNext() {
+        if (!available(current + 1)) {
             return '\0'; 
         }else {
-            return source.charAt(current + 1);
+            return buffer[current + 1 - bufferOffset];
         }
     }
 
-    private boolean isDigit(char c) {
-        return c >= '0' && c <= '9';
+    // Move current up to the next a or b, or to the end of the source.
+    void skipUntil(char a, char b) {
+        while (available(current)) {
+            int end = bufferOffset + bufferLength;
+            current = bufferOffset + CharSearch.indexOf(buffer, current - bufferOffset, bufferLength, a, b);
+            if (current < end) {
+                return;
+            }
+        }
+    }
+
+    // Move current past any spaces and tabs.
+    void skipBlanks() {
+        while (available(current)) {
+            int end = bufferOffset + bufferLength;
+            current = bufferOffset + CharSearch.skipBlanks(buffer, current - bufferOffset, bufferLength);
+            if (current < end) {
+                return;
+            }
+        }
     }
 
-    private boolean isAlpha(char c) {
-        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    private boolean available(int index) {
+        while (index >= bufferOffset + bufferLength) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private boolean isAlphaNumeric(char c) {
-        return isAlpha(c) || isDigit(c);
+    // Drop everything before the current token and read more characters
+    // behind it, growing the window only when a single token outgrows it.
+    private boolean fill() {
+        if (exhausted) {
+            return false;
+        }
+        int from = inComment ? current : start;
+        int keep = from - bufferOffset;
+        if (keep > 0) {
+            System.arraycopy(buffer, keep, buffer, 0, bufferLength - keep);
+            bufferOffset = from;
+            bufferLength -= keep;
+        }
+        if (bufferLength == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            int read = reader.read(buffer, bufferLength, buffer.length - bufferLength);
+            if (read < 0) {
+                exhausted = true;
+                return false;
+            }
+            bufferLength += read;
+            return true;
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
     }
 
 }
@@ -0,0 +1,341 @@
+package com.craftinginterpreters.lox;
+
+/*
+ * Generated by tool/GenerateScanner. Do not edit; change the spec there.
+ */
+class ScannerTable {
+	static final int TOKEN = 1;
+	static final int KEYWORD = 2;
+	static final int IDENTIFIER = 3;
+	static final int NUMBER = 4;
+	static final int STRING = 5;
+	static final int LINE_COMMENT = 6;
+	static final int BLOCK_COMMENT = 7;
+	static final int NEWLINE = 8;
+	static final int BLANK = 9;
+
+	static final int DEAD = 0;
+	static final int START = 1;
+	static final int CLASS_COUNT = 40;
+
+	static final byte[] CLASSES = {
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 2, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		1, 3, 4, 0, 0, 0, 0, 0, 5, 6, 7, 8, 9, 10, 11, 12,
+		13, 13, 13, 13, 13, 13, 13, 13, 13, 13, 14, 15, 16, 17, 18, 19,
+		0, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20,
+		20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 0, 0, 0, 0, 20,
+		0, 21, 20, 22, 23, 24, 25, 20, 26, 27, 20, 20, 28, 20, 29, 30,
+		31, 20, 32, 33, 34, 35, 36, 37, 20, 20, 20, 38, 0, 39, 0, 0,
+	};
+
+	static final short[] NEXT = {
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 3, 4, 5, 6, 7, 8,
+		9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 21,
+		24, 25, 21, 26, 21, 27, 28, 29, 30, 31, 32, 21, 33, 34, 35, 36,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 37, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 38,
+		0, 0, 0, 0, 39, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 40, 0, 14, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 41, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 42, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 43, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 44, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 45, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 46, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 47, 21, 21,
+		21, 21, 21, 21, 21, 21, 48, 21, 21, 21, 21, 49, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 50, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 51, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		52, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 53, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 54, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 55, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 56, 21, 21, 21, 21, 21,
+		57, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 58, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 59, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 60, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 61, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 62, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 63, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 64, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		65, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 66, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 67, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 68, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 69, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 70, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 71, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 72, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		73, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 74, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 60, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 75, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		76, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 77, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 78, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 79, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 80, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 81, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 82, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 83, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 84, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		85, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 86, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 87, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		88, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		89, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 90, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 21, 0, 0,
+		0, 0, 0, 0, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21,
+		21, 21, 21, 21, 21, 21, 0, 0,
+	};
+
+	static final byte[] ACTIONS = {
+		0, 0, BLANK, NEWLINE,
+		TOKEN, STRING, TOKEN, TOKEN,
+		TOKEN, TOKEN, TOKEN, TOKEN,
+		TOKEN, TOKEN, NUMBER, TOKEN,
+		TOKEN, TOKEN, TOKEN, TOKEN,
+		TOKEN, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, IDENTIFIER, IDENTIFIER, TOKEN,
+		TOKEN, TOKEN, BLOCK_COMMENT, LINE_COMMENT,
+		0, TOKEN, TOKEN, TOKEN,
+		IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, IDENTIFIER, KEYWORD, IDENTIFIER,
+		KEYWORD, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		NUMBER, KEYWORD, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, KEYWORD, KEYWORD, KEYWORD,
+		IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, KEYWORD, IDENTIFIER, IDENTIFIER,
+		KEYWORD, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+		IDENTIFIER, KEYWORD, KEYWORD, IDENTIFIER,
+		KEYWORD, KEYWORD, KEYWORD, IDENTIFIER,
+		KEYWORD, KEYWORD, KEYWORD,
+	};
+
+	static final TokenType[] TYPES = {
+		null, null, null, null,
+		TokenType.BANG, TokenType.STRING, TokenType.LEFT_PAREN, TokenType.RIGHT_PAREN,
+		TokenType.STAR, TokenType.PLUS, TokenType.COMMA, TokenType.MINUS,
+		TokenType.DOT, TokenType.SLASH, TokenType.NUMBER, TokenType.COLON,
+		TokenType.SEMICOLON, TokenType.LESS, TokenType.EQUAL, TokenType.GREATER,
+		TokenType.QUESTION_MARK, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.LEFT_BRACE,
+		TokenType.RIGHT_BRACE, TokenType.BANG_EQUAL, null, null,
+		null, TokenType.LESS_EQUAL, TokenType.EQUAL_EQUAL, TokenType.GREATER_EQUAL,
+		TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IF, TokenType.IDENTIFIER,
+		TokenType.OR, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.NUMBER, TokenType.AND, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.FOR, TokenType.FUN, TokenType.NIL,
+		TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.VAR, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.ELSE, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+		TokenType.IDENTIFIER, TokenType.THIS, TokenType.TRUE, TokenType.IDENTIFIER,
+		TokenType.CLASS, TokenType.FALSE, TokenType.PRINT, TokenType.IDENTIFIER,
+		TokenType.SUPER, TokenType.WHILE, TokenType.RETURN,
+	};
+
+	static final String[] LEXEMES = {
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, null, null,
+		null, null, "if", null,
+		"or", null, null, null,
+		null, null, null, null,
+		null, "and", null, null,
+		null, "for", "fun", "nil",
+		null, null, null, null,
+		null, "var", null, null,
+		"else", null, null, null,
+		null, "this", "true", null,
+		"class", "false", "print", null,
+		"super", "while", "return",
+	};
+
+}
@@ -0,0 +1,116 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Objects;
+
+/*
+ * Runs a Chunk with one dispatch loop over the code and an array for the
+ * value stack, sized by the compiler so it is never checked or grown. The
+ * stack only lives for one run, so popped slots are not cleared.
+ */
+class StackVM {
+    // Globals live here, across chunks, like the Interpreter's environment.
+    private final Environment environment = new Environment();
+    private final Interpreter operators = new Interpreter();
+
+    boolean run(Chunk chunk) {
+        return Lox.runReported(() -> execute(chunk));
+    }
+
+    private void execute(Chunk chunk) {
+        byte[] code = chunk.code;
+        Object[] constants = chunk.constants;
+        Object[] stack = new Object[Math.max(chunk.maxStack, 1)];
+        int sp = 0;
+        int ip = 0;
+        for (;;) {
+            int at = ip;
+            switch (code[ip++]) {
+                case Chunk.CONSTANT -> {
+                    stack[sp++] = constants[Chunk.operand(code, ip)];
+                    ip += 3;
+                }
+                case Chunk.NIL -> stack[sp++] = null;
+                case Chunk.TRUE -> stack[sp++] = true;
+                case Chunk.FALSE -> stack[sp++] = false;
+                case Chunk.POP -> sp--;
+                case Chunk.GET -> {
+                    int symbol = Chunk.operand(code, ip);
+                    ip += 3;
+                    Object value = environment.find(symbol);
+                    stack[sp++] = value != Environment.UNDEFINED ? value : environment.get(chunk.token(at), symbol);
+                }
+                case Chunk.DEFINE -> {
+                    environment.define(Chunk.operand(code, ip), stack[--sp]);
+                    ip += 3;
+                }
+                case Chunk.PRINT -> {
+                    System.out.println(operators.stringify(stack[--sp]));
+                }
+                case Chunk.NEGATE -> {
+                    Object value = stack[sp - 1];
+                    stack[sp - 1] = value instanceof Double number ? -number
+                            : operators.unary(chunk.token(at), value);
+                }
+                case Chunk.NOT -> stack[sp - 1] = !operators.isTruthy(stack[sp - 1]);
+                case Chunk.ADD -> {
+                    Object b = stack[--sp];
+                    Object a = stack[sp - 1];
+                    stack[sp - 1] = a instanceof Double x && b instanceof Double y ? (Object) (x + y)
+                            : operators.binary(chunk.token(at), a, b);
+                }
+                case Chunk.SUBTRACT -> {
+                    Object b = stack[--sp];
+                    Object a = stack[sp - 1];
+                    stack[sp - 1] = a instanceof Double x && b instanceof Double y ? (Object) (x - y)
+                            : operators.binary(chunk.token(at), a, b);
+                }
+                case Chunk.MULTIPLY -> {
+                    Object b = stack[--sp];
+                    Object a = stack[sp - 1];
+                    stack[sp - 1] = a instanceof Double x && b instanceof Double y ? (Object) (x * y)
+                            : operators.binary(chunk.token(at), a, b);
+                }
+                case Chunk.DIVIDE -> {
+                    Object b = stack[--sp];
+                    Object a = stack[sp - 1];
+                    // A zero divisor goes the slow way to raise the error.
+                    stack[sp - 1] = a instanceof Double x && b instanceof Double y
+                            && Double.doubleToLongBits(y) != 0L ? (Object) (x / y)
+                            : operators.binary(chunk.token(at), a, b);
+                }
+                case Chunk.EQUAL -> {
+                    Object b = stack[--sp];
+                    stack[sp - 1] = Objects.equals(stack[sp - 1], b);
+                }
+                case Chunk.NOT_EQUAL -> {
+                    Object b = stack[--sp];
+                    stack[sp - 1] = !Objects.equals(stack[sp - 1], b);
+                }
+                case Chunk.GREATER, Chunk.GREATER_EQUAL, Chunk.LESS, Chunk.LESS_EQUAL -> {
+                    Object b = stack[--sp];
+                    Object a = stack[sp - 1];
+                    stack[sp - 1] = a instanceof Double x && b instanceof Double y ? (Object) compare(code[at], x, y)
+                            : operators.binary(chunk.token(at), a, b);
+                }
+                case Chunk.JUMP -> ip += 3 + Chunk.operand(code, ip);
+                case Chunk.JUMP_IF_FALSE -> {
+                    boolean truthy = operators.isTruthy(stack[--sp]);
+                    ip += truthy ? 3 : 3 + Chunk.operand(code, ip);
+                }
+                case Chunk.RETURN -> {
+                    return;
+                }
+                default -> throw new IllegalStateException("Bad opcode " + code[at] + " at " + at);
+            }
+        }
+    }
+
+    private static boolean compare(byte op, double x, double y) {
+        return switch (op) {
+            case Chunk.GREATER -> x > y;
+            case Chunk.GREATER_EQUAL -> x >= y;
+            case Chunk.LESS -> x < y;
+            default -> x <= y;
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/*
+ * Parses on a thread of its own and hands statements over through a bounded
+ * queue, so scanning and parsing the rest of a file overlaps with executing
+ * what has been parsed so far. The queue bound keeps the parser at most a
+ * few statements ahead, which also bounds memory.
+ */
+class StatementPipeline implements Iterator<Stmt> {
+    static final int CAPACITY = 64;
+
+    // Queue entries standing in for a null statement (one with a syntax
+    // error) and for the end of the source.
+    private static final Object FAILED = new Object();
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private Object next;
+
+    StatementPipeline(Parser parser) {
+        Thread thread = new Thread(() -> produce(parser), "lox-parser");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void produce(Parser parser) {
+        try {
+            Iterator<Stmt> statements = parser.statements();
+            while (statements.hasNext()) {
+                Stmt statement = statements.next();
+                queue.put(statement == null ? FAILED : statement);
+            }
+            queue.put(END);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException error) {
+            // Rethrown on the consuming thread by next().
+            try {
+                queue.put(error);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(error);
+            }
+        }
+        if (next instanceof RuntimeException error) {
+            throw error;
+        }
+        return next != END;
+    }
+
+    @Override
+    public Stmt next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object statement = next;
+        next = null;
+        return statement == FAILED ? null : (Stmt) statement;
+    }
+}
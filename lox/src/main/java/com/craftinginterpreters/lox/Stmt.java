@@ -21,8 +21,9 @@ abstract class Stmt{
 	}
 
 	static class Var extends Stmt {
-		Var(Token name,Expr initializer) {
+		Var(Token name,int symbol,Expr initializer) {
 			this.name = name;
+			this.symbol = symbol;
 			this.initializer = initializer;
 		}
 
@@ -31,6 +32,7 @@ abstract class Stmt{
 			return visitor.visitVarStmt(this);
 		}
 		final Token name;
+		final int symbol;
 		final Expr initializer;
 	}
 
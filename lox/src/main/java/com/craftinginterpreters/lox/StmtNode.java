@@ -0,0 +1,25 @@
+package com.craftinginterpreters.lox;
+
+sealed interface StmtNode{
+	record Expression(ExprNode expression) implements StmtNode {}
+	record Var(Token name,int symbol,ExprNode initializer) implements StmtNode {}
+	record Print(ExprNode expression) implements StmtNode {}
+
+	static StmtNode of(Stmt node){
+		if(node==null) return null;
+		return node.accept(new Stmt.Visitor<StmtNode>(){
+			@Override
+			public StmtNode visitExpressionStmt(Stmt.Expression node){
+				return new Expression(ExprNode.of(node.expression));
+			}
+			@Override
+			public StmtNode visitVarStmt(Stmt.Var node){
+				return new Var(node.name,node.symbol,ExprNode.of(node.initializer));
+			}
+			@Override
+			public StmtNode visitPrintStmt(Stmt.Print node){
+				return new Print(ExprNode.of(node.expression));
+			}
+		});
+	}
+}
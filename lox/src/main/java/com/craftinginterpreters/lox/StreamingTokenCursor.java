@@ -0,0 +1,51 @@
+package com.craftinginterpreters.lox;
+
+/*
+ * Pulls tokens from the scanner as the parser asks for them. Only a small
+ * ring of recent tokens is kept, so parsing never holds more than a handful
+ * of tokens no matter how long the source is.
+ */
+class StreamingTokenCursor implements TokenCursor {
+    // Must be a power of two; one slot is reserved for previous().
+    private static final int CAPACITY = 4;
+    private static final int MASK = CAPACITY - 1;
+
+    private final Scanner scanner;
+    private final Token[] ring = new Token[CAPACITY];
+    private int current = 0;
+    private int fetched = 0;
+
+    StreamingTokenCursor(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public Token peek() {
+        return lookahead(0);
+    }
+
+    Token lookahead(int distance) {
+        if (distance >= CAPACITY - 1) {
+            throw new IllegalArgumentException("Lookahead " + distance + " exceeds buffer.");
+        }
+        while (fetched <= current + distance) {
+            ring[fetched & MASK] = scanner.nextToken();
+            fetched++;
+        }
+        return ring[(current + distance) & MASK];
+    }
+
+    @Override
+    public Token previous() {
+        if (current == 0) {
+            throw new IndexOutOfBoundsException("No token has been consumed yet.");
+        }
+        return ring[(current - 1) & MASK];
+    }
+
+    @Override
+    public void advance() {
+        peek();
+        current++;
+    }
+}
@@ -0,0 +1,118 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/*
+ * Interns names to dense integer ids. Every occurrence of a name shares one
+ * String and one id, so the interpreter can index variables by id and compare
+ * them as ints. Lookups can hash a range of scanner source directly, which
+ * means a name that has been seen before never allocates again.
+ */
+class SymbolTable {
+    // Names are shared by every scanner, parser and interpreter in the
+    // process so ids stay meaningful across REPL lines.
+    static final SymbolTable names = new SymbolTable();
+
+    private String[] symbols = new String[64];
+    private int[] hashes = new int[64];
+    // Open-addressed slots holding id + 1, zero when empty.
+    private int[] slots = new int[128];
+    private int size = 0;
+
+    synchronized int intern(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return add(slot, hash, name);
+            }
+            if (hashes[id] == hash && symbols[id].equals(name)) {
+                return id;
+            }
+        }
+    }
+
+    // Same as intern(source.text(from, to)) but only builds the String the
+    // first time the name is seen. A scanner over UTF-8 bytes can only be
+    // hashed and compared in place while the text is ASCII; anything else
+    // is decoded first, so it finds the entry its chars were stored under.
+    synchronized int intern(Scanner source, int from, int to) {
+        int hash = 0;
+        int bits = 0;
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            hash = 31 * hash + c;
+            bits |= c;
+        }
+        if (bits >= 0x80 && source.readsBytes()) {
+            return intern(source.text(from, to));
+        }
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return add(slot, hash, source.text(from, to));
+            }
+            if (hashes[id] == hash && matches(symbols[id], source, from, to)) {
+                return id;
+            }
+        }
+    }
+
+    synchronized String name(int id) {
+        return symbols[id];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Forget every name. Only for private tables whose ids are never kept,
+    // never for SymbolTable.names.
+    synchronized void clear() {
+        symbols = new String[64];
+        hashes = new int[64];
+        slots = new int[128];
+        size = 0;
+    }
+
+    private boolean matches(String symbol, Scanner source, int from, int to) {
+        if (symbol.length() != to - from) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (symbol.charAt(i - from) != source.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int add(int slot, int hash, String name) {
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        symbols[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+}
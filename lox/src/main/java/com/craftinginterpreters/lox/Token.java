@@ -4,13 +4,28 @@ class Token {
   final TokenType type;
   final String lexeme;
   final Object literal;
+  // Line the token ends on, counted as it is scanned. It is kept beside
+  // the offset because a Reader's LineIndex only holds recent lines, so
+  // this is the only line a token from early in a long stream still has.
   final int line;
+  // Source offset of the lexeme, or -1 for tokens built without a scanner.
+  // The column is looked up from it through the source's LineIndex.
+  final int offset;
+  // Id of the name in SymbolTable.names, or -1 if this is not an identifier
+  // or was built without a scanner.
+  final int symbol;
 
   Token(TokenType type, String lexeme, Object literal, int line) {
+    this(type, lexeme, literal, line, -1, -1);
+  }
+
+  Token(TokenType type, String lexeme, Object literal, int line, int offset, int symbol) {
     this.type = type;
     this.lexeme = lexeme;
     this.literal = literal;
     this.line = line;
+    this.offset = offset;
+    this.symbol = symbol;
   }
 
   public String toString() {
@@ -0,0 +1,128 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/*
+ * Tokens stored column-wise in parallel primitive arrays instead of one Token
+ * object each. Only the type, source range and numeric value are kept. Lines
+ * come from the scanner's LineIndex, and lexemes and literals are sliced back
+ * out of the scanner's source when someone actually asks for them, so the
+ * source must stay fully in memory (a String or mapped Scanner, not a Reader).
+ */
+class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final Scanner source;
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private double[] numbers;
+    private int size = 0;
+
+    TokenBuffer(Scanner source, int capacity) {
+        this.source = source;
+        capacity = Math.max(capacity, 16);
+        this.types = new int[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.numbers = new double[capacity];
+    }
+
+    void add(TokenType type, int start, int length, double number) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+        }
+        types[size] = type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        numbers[size] = number;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    // The line the token ends on, as in Token.line.
+    int line(int index) {
+        return source.lines().line(starts[index] + Math.max(lengths[index] - 1, 0));
+    }
+
+    int offset(int index) {
+        return starts[index];
+    }
+
+    double number(int index) {
+        return numbers[index];
+    }
+
+    String lexeme(int index) {
+        return source.text(starts[index], starts[index] + lengths[index]);
+    }
+
+    // Mirrors what Scanner attaches to each token: the value of a number,
+    // the contents of a string, and the lexeme of a name or keyword.
+    Object literal(int index) {
+        TokenType type = type(index);
+        switch (type) {
+            case NUMBER -> {
+                return numbers[index];
+            }
+            case STRING -> {
+                return source.text(starts[index] + 1, starts[index] + lengths[index] - 1);
+            }
+            case IDENTIFIER, AND, CLASS, ELSE, FALSE, FUN, FOR, IF, NIL, OR,
+                    PRINT, RETURN, SUPER, THIS, TRUE, VAR, WHILE -> {
+                return lexeme(index);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    Token token(int index) {
+        if (types[index] == TokenType.IDENTIFIER.ordinal()) {
+            int symbol = SymbolTable.names.intern(source, starts[index], starts[index] + lengths[index]);
+            String name = SymbolTable.names.name(symbol);
+            return new Token(TokenType.IDENTIFIER, name, name, line(index), starts[index], symbol);
+        }
+        return new Token(type(index), lexeme(index), literal(index), line(index), starts[index], -1);
+    }
+
+    TokenCursor cursor() {
+        return new Cursor();
+    }
+
+    private class Cursor implements TokenCursor {
+        private int current = 0;
+
+        @Override
+        public TokenType peekType() {
+            return TYPES[types[current]];
+        }
+
+        @Override
+        public Token peek() {
+            return token(current);
+        }
+
+        @Override
+        public Token previous() {
+            return token(current - 1);
+        }
+
+        @Override
+        public void advance() {
+            current++;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.craftinginterpreters.lox;
+
+/*
+ * The parser's view of the token stream: the token under the cursor, the one
+ * just consumed, and a way to step forward. Implementations decide whether
+ * the tokens are already in memory or pulled from the scanner on demand.
+ */
+interface TokenCursor {
+    // Lets the parser test the current token without materializing it.
+    default TokenType peekType() {
+        return peek().type;
+    }
+
+    Token peek();
+
+    Token previous();
+
+    void advance();
+}
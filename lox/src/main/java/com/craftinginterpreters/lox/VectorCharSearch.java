@@ -0,0 +1,41 @@
+package com.craftinginterpreters.lox;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * The vector half of CharSearch. Only compiled with -Pvector and only loaded
+ * when jdk.incubator.vector is in the boot layer; see CharSearch.vector.
+ */
+class VectorCharSearch implements CharSearch.Kernel {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    @Override
+    public int indexOf(char[] chars, int from, int to, char a, char b) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+            VectorMask<Short> hit = v.eq((short) a).or(v.eq((short) b));
+            if (hit.anyTrue()) {
+                return i + hit.firstTrue();
+            }
+        }
+        return CharSearch.scalarIndexOf(chars, i, to, a, b);
+    }
+
+    @Override
+    public int skipBlanks(char[] chars, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+            VectorMask<Short> other = v.eq((short) ' ').or(v.eq((short) '\t')).not();
+            if (other.anyTrue()) {
+                return i + other.firstTrue();
+            }
+        }
+        return CharSearch.scalarSkipBlanks(chars, i, to);
+    }
+}
@@ -15,23 +15,37 @@ public class GenerateAst {
             System.exit(64);
         }
         String outputDir=args[0];
-        defineAst(outputDir, "Expr", Arrays.asList(
+        List<String> exprTypes=Arrays.asList(
         "Binary   : Expr left,Token operator,Expr right",
         "Comma    : Expr left,Token comma,Expr right",
         "Grouping : Expr expression",
         "Literal  : Object value",
         "Unary    : Token operator,Expr right",
-        "Variable   :Token name",
-        "Ternary   : Expr condition,Expr left,Expr right"));
-
-        defineAst(outputDir, "Stmt", Arrays.asList(
+        "Variable   :Token name,int symbol",
+        "Ternary   : Expr condition,Expr left,Expr right");
+        List<String> stmtTypes=Arrays.asList(
       "Expression : Expr expression",
-      "Var  :Token name,Expr initializer",
+      "Var  :Token name,int symbol,Expr initializer",
       "Print      : Expr expression"
-    ));
+    );
+        // Expressions also get visitors returning unboxed doubles and
+        // booleans, for evaluating numeric subtrees without allocating.
+        defineAst(outputDir, "Expr", exprTypes, Arrays.asList("double", "boolean"));
+        defineAst(outputDir, "Stmt", stmtTypes);
+
+        // The same grammar again as sealed interfaces of records, so the two
+        // forms can never disagree about which nodes and fields exist.
+        defineRecords(outputDir, "Expr", exprTypes);
+        defineRecords(outputDir, "Stmt", stmtTypes);
     }  
 
     public static void defineAst(String ouputDir,String baseName,List<String> types) throws IOException{
+        defineAst(ouputDir, baseName, types, List.of());
+    }
+
+    // Each primitive gets a <Primitive>Visitor interface whose methods return
+    // it, and an accept overload on every node type.
+    public static void defineAst(String ouputDir,String baseName,List<String> types,List<String> primitives) throws IOException{
         String path=ouputDir +"/"+baseName+".java";
         try (PrintWriter writer = new PrintWriter(path,"UTF-8")) {
             writer.println("package com.craftinginterpreters.lox;");
@@ -40,14 +54,20 @@ public class GenerateAst {
             writer.println();
             writer.println("abstract class "+baseName+"{");
             defineVisitor(writer, baseName, types);
+            for(String primitive:primitives){
+                definePrimitiveVisitor(writer, baseName, types, primitive);
+            }
 
             for(String type:types){
                 //trim语法用于去除空白字符
                 String className=type.split(":")[0].trim();
                 String filed=type.split(":")[1].trim();
-                defineType(writer, baseName, className, filed);
+                defineType(writer, baseName, className, filed, primitives);
             }
             writer.println("\tabstract <R> R accept(Visitor<R> visitor);");
+            for(String primitive:primitives){
+                writer.println("\tabstract "+primitive+" accept("+primitiveVisitor(primitive)+" visitor);");
+            }
             writer.println("}");
         }
     }
@@ -64,7 +84,20 @@ public class GenerateAst {
 
 
 
-    private static void defineType(PrintWriter writer,String baseName,String className,String fieldList){
+    public static void definePrimitiveVisitor(PrintWriter writer,String baseName,List<String> types,String primitive){
+        writer.println("\t static interface "+primitiveVisitor(primitive)+"{");
+        for(String type:types){
+            String className=type.split(":")[0].trim();
+            writer.println("\t\t"+primitive+" visit"+className+baseName+"("+className+" expr);");
+        }
+        writer.println("\t}");
+    }
+
+    private static String primitiveVisitor(String primitive){
+        return Character.toUpperCase(primitive.charAt(0))+primitive.substring(1)+"Visitor";
+    }
+
+    private static void defineType(PrintWriter writer,String baseName,String className,String fieldList,List<String> primitives){
         writer.println("\tstatic class "+className+" extends "+baseName+" {");
         writer.println("\t\t"+className+"("+fieldList+") {");
         String[] fields=fieldList.split(",");
@@ -79,6 +112,13 @@ public class GenerateAst {
         writer.println("\t\t<R> R accept(Visitor<R> visitor){");
         writer.println("\t\t\treturn visitor."+"visit"+className+baseName+"(this);");
         writer.println("\t\t}");
+        for(String primitive:primitives){
+            writer.println("");
+            writer.println("\t\t@Override");
+            writer.println("\t\t"+primitive+" accept("+primitiveVisitor(primitive)+" visitor){");
+            writer.println("\t\t\treturn visitor."+"visit"+className+baseName+"(this);");
+            writer.println("\t\t}");
+        }
 
         for(String field:fields){
             String typename=field.split(" ")[0];
@@ -89,4 +129,58 @@ public class GenerateAst {
         writer.println("");
     }
 
+    /*
+     * Writes <baseName>Node: a sealed interface with one record per node
+     * type, where Expr and Stmt fields become ExprNode and StmtNode, and an
+     * of() that converts a tree of the class form into it.
+     */
+    public static void defineRecords(String outputDir,String baseName,List<String> types) throws IOException{
+        String nodeName=baseName+"Node";
+        String path=outputDir+"/"+nodeName+".java";
+        try (PrintWriter writer = new PrintWriter(path,"UTF-8")) {
+            writer.println("package com.craftinginterpreters.lox;");
+            writer.println();
+            writer.println("sealed interface "+nodeName+"{");
+            for(String type:types){
+                String className=type.split(":")[0].trim();
+                StringBuilder components=new StringBuilder();
+                for(String field:type.split(":")[1].trim().split(",")){
+                    if(components.length()>0) components.append(",");
+                    components.append(nodeType(field.split(" ")[0])).append(" ").append(field.split(" ")[1]);
+                }
+                writer.println("\trecord "+className+"("+components+") implements "+nodeName+" {}");
+            }
+            writer.println();
+            writer.println("\tstatic "+nodeName+" of("+baseName+" node){");
+            writer.println("\t\tif(node==null) return null;");
+            writer.println("\t\treturn node.accept(new "+baseName+".Visitor<"+nodeName+">(){");
+            for(String type:types){
+                String className=type.split(":")[0].trim();
+                StringBuilder arguments=new StringBuilder();
+                for(String field:type.split(":")[1].trim().split(",")){
+                    String typename=field.split(" ")[0];
+                    String name=field.split(" ")[1];
+                    if(arguments.length()>0) arguments.append(",");
+                    if(nodeType(typename).equals(typename)){
+                        arguments.append("node.").append(name);
+                    }else{
+                        arguments.append(nodeType(typename)).append(".of(node.").append(name).append(")");
+                    }
+                }
+                writer.println("\t\t\t@Override");
+                writer.println("\t\t\tpublic "+nodeName+" visit"+className+baseName+"("+baseName+"."+className+" node){");
+                writer.println("\t\t\t\treturn new "+className+"("+arguments+");");
+                writer.println("\t\t\t}");
+            }
+            writer.println("\t\t});");
+            writer.println("\t}");
+            writer.println("}");
+        }
+    }
+
+    private static String nodeType(String typename){
+        if(typename.equals("Expr")||typename.equals("Stmt")) return typename+"Node";
+        return typename;
+    }
+
 }
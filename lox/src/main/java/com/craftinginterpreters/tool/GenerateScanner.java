@@ -0,0 +1,492 @@
+package com.craftinginterpreters.tool;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+
+/*
+ * Builds the scanner's transition table from the lexical spec below and
+ * writes it out as ScannerTable.java, the same way GenerateAst writes Expr
+ * and Stmt. Each rule is a small regular expression; they are combined into
+ * one NFA, turned into a DFA by subset construction, minimized, and the
+ * ASCII range is folded into the fewest character classes.
+ *
+ * Earlier rules win when two accept the same lexeme, so keywords come before
+ * IDENTIFIER. Strings and comments only match their opening characters: the
+ * scanner skips their bodies itself with a bulk search.
+ */
+public class GenerateScanner {
+    private static final int ASCII = 128;
+
+    // What the scanner does on reaching an accepting state. Rules named
+    // after an action get it; the rest emit their token type, as KEYWORD
+    // when the pattern is a plain word.
+    private static final List<String> ACTIONS = Arrays.asList(
+        "TOKEN", "KEYWORD", "IDENTIFIER", "NUMBER", "STRING",
+        "LINE_COMMENT", "BLOCK_COMMENT", "NEWLINE", "BLANK");
+    // Actions that produce no token and so have no token type.
+    private static final List<String> SKIPPED = Arrays.asList(
+        "LINE_COMMENT", "BLOCK_COMMENT", "NEWLINE", "BLANK");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: generate_scanner <output directory>");
+            System.exit(64);
+        }
+        String outputDir = args[0];
+        defineScanner(outputDir, Arrays.asList(
+        "LEFT_PAREN    : \\(",
+        "RIGHT_PAREN   : \\)",
+        "LEFT_BRACE    : {",
+        "RIGHT_BRACE   : }",
+        "COMMA         : ,",
+        "DOT           : \\.",
+        "MINUS         : -",
+        "PLUS          : \\+",
+        "SEMICOLON     : ;",
+        "STAR          : \\*",
+        "COLON         : :",
+        "QUESTION_MARK : \\?",
+        "SLASH         : /",
+        "BANG          : !",
+        "BANG_EQUAL    : !=",
+        "EQUAL         : =",
+        "EQUAL_EQUAL   : ==",
+        "GREATER       : >",
+        "GREATER_EQUAL : >=",
+        "LESS          : <",
+        "LESS_EQUAL    : <=",
+        "AND           : and",
+        "CLASS         : class",
+        "ELSE          : else",
+        "FALSE         : false",
+        "FOR           : for",
+        "FUN           : fun",
+        "IF            : if",
+        "NIL           : nil",
+        "OR            : or",
+        "PRINT         : print",
+        "RETURN        : return",
+        "SUPER         : super",
+        "THIS          : this",
+        "TRUE          : true",
+        "VAR           : var",
+        "WHILE         : while",
+        "IDENTIFIER    : [A-Za-z_][A-Za-z0-9_]*",
+        "NUMBER        : [0-9]+(\\.[0-9]+)?",
+        "STRING        : \"",
+        "LINE_COMMENT  : //",
+        "BLOCK_COMMENT : /\\*",
+        "NEWLINE       : \\n",
+        "BLANK         : [ \\t]"));
+    }
+
+    public static void defineScanner(String outputDir, List<String> rules) throws IOException {
+        List<String> names = new ArrayList<>();
+        Nfa nfa = new Nfa();
+        int start = nfa.state();
+        for (String rule : rules) {
+            int colon = rule.indexOf(':');
+            String name = rule.substring(0, colon).trim();
+            String pattern = rule.substring(colon + 1).trim();
+            int[] fragment = new Pattern(nfa, pattern).parse();
+            nfa.epsilon(start, fragment[0]);
+            nfa.accept[fragment[1]] = names.size();
+            names.add(name);
+        }
+
+        Dfa dfa = minimize(determinize(nfa, start));
+        int[] classes = classify(dfa.next);
+
+        String path = outputDir + "/ScannerTable.java";
+        try (PrintWriter writer = new PrintWriter(path, "UTF-8")) {
+            writeTable(writer, rules, names, dfa, classes);
+        }
+    }
+
+    // Subset construction. State 0 is the dead state and state 1 the start.
+    private static Dfa determinize(Nfa nfa, int start) {
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> sets = new ArrayList<>();
+        List<int[]> transitions = new ArrayList<>();
+
+        BitSet dead = new BitSet();
+        ids.put(dead, 0);
+        sets.add(dead);
+        BitSet first = nfa.closure(singleton(start));
+        ids.put(first, 1);
+        sets.add(first);
+
+        for (int i = 0; i < sets.size(); i++) {
+            int[] row = new int[ASCII];
+            for (int c = 0; c < ASCII; c++) {
+                BitSet target = nfa.closure(nfa.move(sets.get(i), c));
+                Integer id = ids.get(target);
+                if (id == null) {
+                    id = sets.size();
+                    ids.put(target, id);
+                    sets.add(target);
+                }
+                row[c] = id;
+            }
+            transitions.add(row);
+        }
+
+        int[] accepted = new int[sets.size()];
+        for (int i = 0; i < sets.size(); i++) {
+            int rule = -1;
+            BitSet set = sets.get(i);
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                if (nfa.accept[s] >= 0 && (rule < 0 || nfa.accept[s] < rule)) {
+                    rule = nfa.accept[s];
+                }
+            }
+            accepted[i] = rule;
+        }
+        return new Dfa(transitions.toArray(new int[0][]), accepted);
+    }
+
+    // Moore's partition refinement: start from one block per accepted rule
+    // and split blocks until every state in a block moves to the same blocks.
+    // The dead and start states keep ids 0 and 1.
+    private static Dfa minimize(Dfa dfa) {
+        int states = dfa.next.length;
+        int[] block = new int[states];
+        int blocks = partition(states, i -> i == 0 ? "dead" : "rule " + dfa.rules[i], block);
+        for (;;) {
+            int[] current = block;
+            int[] refined = new int[states];
+            int count = partition(states, i -> {
+                StringBuilder signature = new StringBuilder().append(current[i]);
+                for (int c = 0; c < ASCII; c++) {
+                    signature.append(',').append(current[dfa.next[i][c]]);
+                }
+                return signature.toString();
+            }, refined);
+            block = refined;
+            if (count == blocks) {
+                break;
+            }
+            blocks = count;
+        }
+
+        int[][] next = new int[blocks][ASCII];
+        int[] rules = new int[blocks];
+        for (int i = 0; i < states; i++) {
+            for (int c = 0; c < ASCII; c++) {
+                next[block[i]][c] = block[dfa.next[i][c]];
+            }
+            rules[block[i]] = dfa.rules[i];
+        }
+        return new Dfa(next, rules);
+    }
+
+    // Number states by first appearance of their key, so state 0 and 1 keep
+    // their ids. Returns how many distinct keys there were.
+    private static int partition(int states, IntFunction<String> key, int[] block) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (int i = 0; i < states; i++) {
+            String k = key.apply(i);
+            Integer id = ids.get(k);
+            if (id == null) {
+                id = ids.size();
+                ids.put(k, id);
+            }
+            block[i] = id;
+        }
+        return ids.size();
+    }
+
+    // Fold characters with identical columns into one class. Class 0 is the
+    // column that goes nowhere, which is also where non-ASCII input lands.
+    private static int[] classify(int[][] dfa) {
+        int[] classes = new int[ASCII];
+        Map<String, Integer> ids = new HashMap<>();
+        ids.put(Arrays.toString(new int[dfa.length]), 0);
+        for (int c = 0; c < ASCII; c++) {
+            int[] column = new int[dfa.length];
+            for (int s = 0; s < dfa.length; s++) {
+                column[s] = dfa[s][c];
+            }
+            String key = Arrays.toString(column);
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = ids.size();
+                ids.put(key, id);
+            }
+            classes[c] = id;
+        }
+        return classes;
+    }
+
+    private static void writeTable(PrintWriter writer, List<String> rules, List<String> names,
+                                   Dfa dfa, int[] classes) {
+        int classCount = Arrays.stream(classes).max().getAsInt() + 1;
+        int[] representative = new int[classCount];
+        for (int c = ASCII - 1; c >= 0; c--) {
+            representative[classes[c]] = c;
+        }
+
+        writer.println("package com.craftinginterpreters.lox;");
+        writer.println();
+        writer.println("/*");
+        writer.println(" * Generated by tool/GenerateScanner. Do not edit; change the spec there.");
+        writer.println(" */");
+        writer.println("class ScannerTable {");
+        for (int i = 0; i < ACTIONS.size(); i++) {
+            writer.println("\tstatic final int " + ACTIONS.get(i) + " = " + (i + 1) + ";");
+        }
+        writer.println();
+        writer.println("\tstatic final int DEAD = 0;");
+        writer.println("\tstatic final int START = 1;");
+        writer.println("\tstatic final int CLASS_COUNT = " + classCount + ";");
+        writer.println();
+
+        List<String> values = new ArrayList<>();
+        for (int c = 0; c < ASCII; c++) {
+            values.add(String.valueOf(classes[c]));
+        }
+        writeArray(writer, "byte", "CLASSES", values);
+
+        values.clear();
+        for (int[] row : dfa.next) {
+            for (int k = 0; k < classCount; k++) {
+                values.add(String.valueOf(row[representative[k]]));
+            }
+        }
+        writeArray(writer, "short", "NEXT", values);
+
+        List<String> actions = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        List<String> lexemes = new ArrayList<>();
+        for (int rule : dfa.rules) {
+            if (rule < 0) {
+                actions.add("0");
+                types.add("null");
+                lexemes.add("null");
+                continue;
+            }
+            String name = names.get(rule);
+            String pattern = rules.get(rule).substring(rules.get(rule).indexOf(':') + 1).trim();
+            boolean keyword = pattern.chars().allMatch(c -> c >= 'a' && c <= 'z');
+            String action = ACTIONS.contains(name) ? name : keyword ? "KEYWORD" : "TOKEN";
+            actions.add(action);
+            types.add(SKIPPED.contains(name) ? "null" : "TokenType." + name);
+            lexemes.add(keyword ? "\"" + pattern + "\"" : "null");
+        }
+        writeArray(writer, "byte", "ACTIONS", actions);
+        writeArray(writer, "TokenType", "TYPES", types);
+        writeArray(writer, "String", "LEXEMES", lexemes);
+        writer.println("}");
+    }
+
+    private static void writeArray(PrintWriter writer, String type, String name, List<String> values) {
+        writer.println("\tstatic final " + type + "[] " + name + " = {");
+        int perLine = values.stream().mapToInt(String::length).max().orElse(1) > 4 ? 4 : 16;
+        for (int i = 0; i < values.size(); i += perLine) {
+            List<String> line = values.subList(i, Math.min(i + perLine, values.size()));
+            writer.println("\t\t" + String.join(", ", line) + ",");
+        }
+        writer.println("\t};");
+        writer.println();
+    }
+
+    private static BitSet singleton(int state) {
+        BitSet set = new BitSet();
+        set.set(state);
+        return set;
+    }
+
+    private static class Dfa {
+        final int[][] next;
+        // The rule each state accepts, or -1.
+        final int[] rules;
+
+        Dfa(int[][] next, int[] rules) {
+            this.next = next;
+            this.rules = rules;
+        }
+    }
+
+    // Thompson NFA: each state has at most one character-set edge plus any
+    // number of epsilon edges.
+    private static class Nfa {
+        final List<boolean[]> chars = new ArrayList<>();
+        final List<Integer> targets = new ArrayList<>();
+        final List<List<Integer>> epsilons = new ArrayList<>();
+        int[] accept = new int[0];
+
+        int state() {
+            chars.add(null);
+            targets.add(-1);
+            epsilons.add(new ArrayList<>());
+            accept = Arrays.copyOf(accept, chars.size());
+            accept[chars.size() - 1] = -1;
+            return chars.size() - 1;
+        }
+
+        void edge(int from, boolean[] set, int to) {
+            chars.set(from, set);
+            targets.set(from, to);
+        }
+
+        void epsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        BitSet closure(BitSet states) {
+            BitSet closure = (BitSet) states.clone();
+            List<Integer> work = new ArrayList<>();
+            states.stream().forEach(work::add);
+            while (!work.isEmpty()) {
+                int state = work.remove(work.size() - 1);
+                for (int next : epsilons.get(state)) {
+                    if (!closure.get(next)) {
+                        closure.set(next);
+                        work.add(next);
+                    }
+                }
+            }
+            return closure;
+        }
+
+        BitSet move(BitSet states, int c) {
+            BitSet moved = new BitSet();
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                if (chars.get(s) != null && chars.get(s)[c]) {
+                    moved.set(targets.get(s));
+                }
+            }
+            return moved;
+        }
+    }
+
+    // Recursive descent over the rule syntax: alternation with |, grouping
+    // with (), classes like [a-z_], the postfix operators * + ?, and \
+    // escapes (\n and \t, anything else stands for itself). Each method
+    // returns a fragment as {entry state, exit state}.
+    private static class Pattern {
+        private final Nfa nfa;
+        private final String pattern;
+        private int current = 0;
+
+        Pattern(Nfa nfa, String pattern) {
+            this.nfa = nfa;
+            this.pattern = pattern;
+        }
+
+        int[] parse() {
+            int[] fragment = alternation();
+            if (current != pattern.length()) {
+                throw new IllegalArgumentException("Unexpected '" + pattern.charAt(current) + "' in " + pattern);
+            }
+            return fragment;
+        }
+
+        private int[] alternation() {
+            int[] fragment = sequence();
+            while (match('|')) {
+                int[] right = sequence();
+                int entry = nfa.state();
+                int exit = nfa.state();
+                nfa.epsilon(entry, fragment[0]);
+                nfa.epsilon(entry, right[0]);
+                nfa.epsilon(fragment[1], exit);
+                nfa.epsilon(right[1], exit);
+                fragment = new int[] {entry, exit};
+            }
+            return fragment;
+        }
+
+        private int[] sequence() {
+            int entry = nfa.state();
+            int exit = entry;
+            while (current < pattern.length() && peek() != '|' && peek() != ')') {
+                int[] next = repetition();
+                nfa.epsilon(exit, next[0]);
+                exit = next[1];
+            }
+            return new int[] {entry, exit};
+        }
+
+        private int[] repetition() {
+            int[] fragment = atom();
+            while (current < pattern.length() && "*+?".indexOf(peek()) >= 0) {
+                char operator = pattern.charAt(current++);
+                int entry = nfa.state();
+                int exit = nfa.state();
+                nfa.epsilon(entry, fragment[0]);
+                nfa.epsilon(fragment[1], exit);
+                if (operator != '+') {
+                    nfa.epsilon(entry, exit);
+                }
+                if (operator != '?') {
+                    nfa.epsilon(fragment[1], fragment[0]);
+                }
+                fragment = new int[] {entry, exit};
+            }
+            return fragment;
+        }
+
+        private int[] atom() {
+            if (match('(')) {
+                int[] fragment = alternation();
+                if (!match(')')) {
+                    throw new IllegalArgumentException("Expect ')' in " + pattern);
+                }
+                return fragment;
+            }
+            boolean[] set = new boolean[ASCII];
+            if (match('[')) {
+                while (!match(']')) {
+                    char from = character();
+                    char to = from;
+                    if (peek() == '-' && current + 1 < pattern.length() && pattern.charAt(current + 1) != ']') {
+                        current++;
+                        to = character();
+                    }
+                    for (char c = from; c <= to; c++) {
+                        set[c] = true;
+                    }
+                }
+            } else {
+                set[character()] = true;
+            }
+            int entry = nfa.state();
+            int exit = nfa.state();
+            nfa.edge(entry, set, exit);
+            return new int[] {entry, exit};
+        }
+
+        private char character() {
+            if (current >= pattern.length()) {
+                throw new IllegalArgumentException("Unterminated " + pattern);
+            }
+            char c = pattern.charAt(current++);
+            if (c != '\\') {
+                return c;
+            }
+            char escaped = pattern.charAt(current++);
+            return escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped;
+        }
+
+        private boolean match(char expected) {
+            if (current < pattern.length() && pattern.charAt(current) == expected) {
+                current++;
+                return true;
+            }
+            return false;
+        }
+
+        private char peek() {
+            return pattern.charAt(current);
+        }
+    }
+}
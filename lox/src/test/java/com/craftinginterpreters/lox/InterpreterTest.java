@@ -1,17 +1,25 @@
 package com.craftinginterpreters.lox;
 
+import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static com.craftinginterpreters.lox.TokenType.BANG;
 import static com.craftinginterpreters.lox.TokenType.COMMA;
@@ -45,6 +53,25 @@ class InterpreterTest {
         return new Token(type, lexeme, literal, 1);
     }
 
+    // Runs each source through both engines and checks that they give equal
+    // values, or throw the same RuntimeError at the same token.
+    private void assertSameResults(Function<String, Object> expected, Function<String, Object> actual,
+                                   String... sources) {
+        for (String source : sources) {
+            Object value;
+            try {
+                value = expected.apply(source);
+            } catch (RuntimeError error) {
+                RuntimeError thrown = assertThrows(RuntimeError.class, () -> actual.apply(source), source);
+                assertEquals(error.getMessage(), thrown.getMessage(), source);
+                assertEquals(error.token.lexeme, thrown.token.lexeme, source);
+                assertEquals(error.token.offset, thrown.token.offset, source);
+                continue;
+            }
+            assertEquals(value, actual.apply(source), source);
+        }
+    }
+
     // ========== Literal Expression Tests ==========
 
     @Test
@@ -524,5 +551,349 @@ void testEvaluateComma_WithExpressions() {
         assertTrue(interpreter.isTruthy("hello"));
         assertTrue(interpreter.isTruthy(""));
     }
-}
 
+    // ========== Variable Tests ==========
+
+    @Test
+    @DisplayName("Test variables - Defined and read by symbol")
+    void testVariables_DefinedAndReadBySymbol() {
+        Interpreter interpreter = new Interpreter();
+        List<Stmt> statements = new Parser(new Scanner("var a = 1; var b = a + 2; var c;").scanTokens()).parse();
+        interpreter.interpret(statements);
+
+        Token b = createToken(TokenType.IDENTIFIER, "b", null);
+        Token c = createToken(TokenType.IDENTIFIER, "c", null);
+        assertEquals(3.0, interpreter.evaluate(new Expr.Variable(b, SymbolTable.names.intern("b"))));
+        assertNull(interpreter.evaluate(new Expr.Variable(c, SymbolTable.names.intern("c"))));
+    }
+
+    @Test
+    @DisplayName("Test variables - Undefined variable is a runtime error")
+    void testVariables_Undefined() {
+        Interpreter interpreter = new Interpreter();
+        Token name = createToken(TokenType.IDENTIFIER, "neverDefined", null);
+        Expr.Variable expr = new Expr.Variable(name, SymbolTable.names.intern("neverDefined"));
+
+        RuntimeError error = assertThrows(RuntimeError.class, () -> interpreter.evaluate(expr));
+        assertEquals("Undefined variable 'neverDefined'.", error.getMessage());
+    }
+
+    // ========== Iterative Mode Tests ==========
+
+    private Expr parseIterative(String source) {
+        return new Parser(new ListTokenCursor(new Scanner(source).scanTokens()), true).parseExpression();
+    }
+
+    @Test
+    @DisplayName("Test iterative mode - Agrees with the recursive evaluator")
+    void testIterative_AgreesWithRecursive() {
+        Interpreter recursive = new Interpreter();
+        Interpreter iterative = new Interpreter(true);
+        assertSameResults(source -> recursive.evaluate(parseIterative(source)),
+                source -> iterative.evaluate(parseIterative(source)),
+                "1 + 2 * 3 - 4 / 2", "-(1 + 2) * -3", "!nil == !false", "1, 2, 3",
+                "true ? 1 : 2", "false ? 1 : nil ? 2 : 3", "\"a\" + 1 + (2 < 3)",
+                "(1 >= 1) != (2 <= 1)", "1 / 0", "-\"s\"", "1 < \"s\"");
+    }
+
+    @Test
+    @DisplayName("Test iterative mode - Deep nesting")
+    void testIterative_DeepNesting() {
+        Interpreter interpreter = new Interpreter(true);
+        int depth = 200_000;
+
+        assertEquals(7.0, interpreter.evaluate(parseIterative("(".repeat(depth) + "7" + ")".repeat(depth))));
+        assertEquals(7.0, interpreter.evaluate(parseIterative("- ".repeat(depth) + "7")));
+        assertEquals((double) depth + 1, interpreter.evaluate(parseIterative("1 + (".repeat(depth) + "1" + ")".repeat(depth))));
+        assertEquals(2.0, interpreter.evaluate(parseIterative("false ? 1 : ".repeat(depth) + "2")));
+    }
+
+    @Test
+    @DisplayName("Test interpret - Single statements run as they arrive")
+    void testInterpret_SingleStatement() {
+        Interpreter interpreter = new Interpreter();
+        Iterator<Stmt> statements = new Parser(new Scanner("var s = 1; var t = s + 1; var u = -\"x\";").scanTokens())
+                .statements();
+
+        assertTrue(interpreter.interpret(statements.next()));
+        assertTrue(interpreter.interpret(statements.next()));
+        assertEquals(2.0, interpreter.evaluate(new Expr.Variable(createToken(TokenType.IDENTIFIER, "t", null),
+                                                                 SymbolTable.names.intern("t"))));
+        assertFalse(interpreter.interpret(statements.next()));
+    }
+
+    // ========== Constant Folding Tests ==========
+
+    private Expr parse(String source) {
+        return new Parser(new Scanner(source).scanTokens()).parseExpression();
+    }
+
+    @Test
+    @DisplayName("Test constant folding - Agrees with evaluating the original tree")
+    void testConstantFolding_AgreesWithInterpreter() {
+        Interpreter interpreter = new Interpreter();
+        ConstantFolder folder = new ConstantFolder();
+        Function<String, Object> folded = source -> {
+            Expr expr = folder.fold(parse(source));
+            Object value = interpreter.evaluate(expr);
+            // Only a subtree that would raise an error is left unfolded.
+            assertTrue(expr instanceof Expr.Literal, source);
+            return value;
+        };
+        assertSameResults(source -> interpreter.evaluate(parse(source)), folded,
+                "1 + 2 * 3 - 4 / 2", "-(1 + 2) * -3", "!nil == !false", "1, 2, 3",
+                "true ? 1 : 2", "false ? 1 : nil ? 2 : 3", "\"a\" + 1 + (2 < 3)",
+                "(1 >= 1) != (2 <= 1)", "1 / 0", "-\"s\"", "1 < \"s\"", "(1 / 0) + 2",
+                "1 + (2 / (3 - 3))", "true ? 1 / 0 : 2", "false ? 1 / 0 : 2");
+    }
+
+    @Test
+    @DisplayName("Test constant folding - Division by zero is left for run time")
+    void testConstantFolding_DivisionByZeroDeferred() {
+        Expr folded = new ConstantFolder().fold(parse("(2 * 3) / (1 - 1)"));
+
+        assertEquals("(/ 6.0 0.0)", new AstPrinter().print(folded));
+        RuntimeError error = assertThrows(RuntimeError.class, () -> new Interpreter().evaluate(folded));
+        assertEquals("division by zero", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Test constant folding - Only constant subtrees fold")
+    void testConstantFolding_KeepsVariables() {
+        ConstantFolder folder = new ConstantFolder();
+        AstPrinter printer = new AstPrinter();
+
+        assertEquals("(+ x 3.0)", printer.print(folder.fold(parse("x + (1 + 2)"))));
+        assertEquals("(* x 1.0)", printer.print(folder.fold(parse("x * 1"))));
+        assertEquals("(ternary x 5.0 y)", printer.print(folder.fold(parse("x ? (2 + 3) : (y)"))));
+        assertEquals("y", printer.print(folder.fold(parse("(x, 1 + 1), y"))));
+
+        Expr unchanged = parse("x + y");
+        assertTrue(folder.fold(unchanged) == unchanged);
+    }
+
+    // ========== Record Dispatch Tests ==========
+
+    @Test
+    @DisplayName("Test record nodes - Agree with the visitor path")
+    void testRecordNodes_AgreeWithVisitors() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.interpretNodes(new Parser(new Scanner("var r = 4; var q;").scanTokens()).parse()
+                .stream().map(StmtNode::of).toList());
+        assertSameResults(source -> interpreter.evaluate(parse(source)),
+                source -> interpreter.evaluate(ExprNode.of(parse(source))),
+                "1 + 2 * 3 - 4 / 2", "-(1 + 2) * -r", "!nil == !q", "1, 2, r",
+                "r > 3 ? 1 : 2", "false ? 1 : nil ? 2 : 3", "\"a\" + r + (2 < 3)",
+                "(1 >= 1) != (2 <= 1)", "r / 0", "-\"s\"", "1 < \"s\"", "undefinedHere + 1");
+    }
+
+    // ========== Unboxed Evaluation Tests ==========
+
+    @Test
+    @DisplayName("Test unboxed evaluation - Matches the boxed operators, errors included")
+    void testUnboxed_MatchesBoxedOperators() {
+        // The iterative evaluator always goes through the boxed binary and unary.
+        Interpreter unboxed = new Interpreter();
+        Interpreter boxed = new Interpreter(true);
+        String setup = "var n = 3; var s = \"s\"; var z = 0; var t = true;";
+        unboxed.interpret(new Parser(new Scanner(setup).scanTokens()).parse());
+        boxed.interpret(new Parser(new Scanner(setup).scanTokens()).parse());
+        assertSameResults(source -> boxed.evaluate(parse(source)), source -> unboxed.evaluate(parse(source)),
+                "n * 2 - n / 4 + (n - 1) * -n", "1 / -0", "1 / (n - n)", "n / z", "(s + 1) - 2", "s + n * 2",
+                "n - undefinedHere", "s - undefinedHere", "-(-s)", "-nil", "-t", "!n", "!!(n - 3)",
+                "n < 4 == true", "(1 + s) < 2", "n > 2 ? n * 2 : s", "(n < 4) * 2", "n - (n > 1)",
+                "n >= 3 ? 1 : s", "(n, s) - 1", "t ? n : s", "z <= -0", "n * (s == s)");
+    }
+
+    @Test
+    @DisplayName("Test unboxed evaluation - + chains add numbers and join strings like the boxed +")
+    void testUnboxed_PlusChains() {
+        Interpreter unboxed = new Interpreter();
+        Interpreter boxed = new Interpreter(true);
+        String setup = "var a = 1; var b = 2.5; var c = -4; var s = \"s\"; var t = true;";
+        unboxed.interpret(new Parser(new Scanner(setup).scanTokens()).parse());
+        boxed.interpret(new Parser(new Scanner(setup).scanTokens()).parse());
+        assertSameResults(source -> boxed.evaluate(parse(source)), source -> unboxed.evaluate(parse(source)),
+                "a + b + c", "a + b + c + a + b + c + 0.25", "(a + b) + (c + a)", "a + (b + (c + 1))",
+                "s + a + b", "a + b + s", "a + s + b", "a + (b + s) + c", "s + s + s", "-a + b * c + a",
+                "a + b + t", "t + a + b", "a + nil + s", "a + b + undefinedHere", "a + b + 1 / (a - a)");
+        assertEquals(-0.5, unboxed.evaluate(parse("a + b + c")));
+        assertEquals("s12.5", unboxed.evaluate(parse("s + a + b")));
+        assertEquals("3.5s", unboxed.evaluate(parse("a + b + s")));
+    }
+
+    // ========== Compiled Backend Tests ==========
+
+    // Runs statements and returns what was printed to stdout and stderr.
+    private String output(Runnable run) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream capture = new PrintStream(bytes, true);
+        System.setOut(capture);
+        System.setErr(capture);
+        try {
+            run.run();
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+            Lox.hadRuntimeError = false;
+        }
+        return bytes.toString();
+    }
+
+    private static final String[] backendPrograms = {
+        "var a = 1; var b = a * 2 + 3; print b; print a / b; print -a - -b;",
+        "var s = \"x\"; print s + 1; print 1 + s; print s + nil + true; print s == \"x\"; print s != s;",
+        "var n; print n; print !n; print n == nil; print 1 == 1.0; print 0.5 * 4;",
+        "var a = 3; print a > 2 ? a < 3 ? \"low\" : \"three\" : nil; print (a, a + 1); print a >= 3, a <= 2;",
+        "var z = 0; print 1 / -z; print 7 / z; print \"unreached\";",
+        "print 1; print -\"s\";",
+        "print 1; print nope;",
+        "var a = \"s\"; print a < 1;",
+        "var a = true; print a - 1;",
+        "var a = 2; var a = a * a; print a; print (a - 1) * (a + 1) / 3;",
+        "print 1 + 2 * 3; print -(1 - 3) >= 2 ? 4 / 8 : 0; print 2 - 2 == 0; print 1 / (1 - 1); print 9;"
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {"vm", "register", "closure"})
+    @DisplayName("Test compiled backends - Print and fail exactly like the tree-walker")
+    void testBackends_MatchInterpreter(String backend) {
+        for (String program : backendPrograms) {
+            List<Stmt> statements = new Parser(new Scanner(program).scanTokens()).parse();
+            String expected = output(() -> new Interpreter().interpret(statements));
+            String actual = output(() -> {
+                switch (backend) {
+                    case "vm" -> new StackVM().run(BytecodeCompiler.compile(statements));
+                    case "register" -> new RegisterVM().run(RegisterCompiler.compile(statements));
+                    case "closure" -> {
+                        ClosureCompiler closures = new ClosureCompiler();
+                        closures.run(closures.compile(statements));
+                    }
+                    default -> throw new IllegalArgumentException(backend);
+                }
+            });
+            assertEquals(expected, actual, program);
+        }
+    }
+
+    // ========== Bytecode VM Tests ==========
+
+    @Test
+    @DisplayName("Test bytecode VM - Compiled code")
+    void testStackVM_Disassembly() {
+        Chunk chunk = BytecodeCompiler.compile(
+                new Parser(new Scanner("var a = 1; print (a, 2) ? a + 1 : nil;").scanTokens()).parse());
+
+        assertEquals(String.join("\n",
+                "0000 CONSTANT 1.0",
+                "0004 DEFINE a",
+                "0008 CONSTANT 2.0",
+                "0012 JUMP_IF_FALSE -> 0029",
+                "0016 GET a",
+                "0020 CONSTANT 1.0",
+                "0024 ADD",
+                "0025 JUMP -> 0030",
+                "0029 NIL",
+                "0030 PRINT",
+                "0031 RETURN",
+                ""), chunk.disassemble());
+        assertEquals(2, chunk.maxStack);
+        assertEquals("+", chunk.token(24).lexeme);
+        assertNull(chunk.token(25));
+    }
+
+    // ========== Register VM Tests ==========
+
+    @Test
+    @DisplayName("Test register VM - Superinstructions")
+    void testRegisterVM_Disassembly() {
+        RegisterCode code = RegisterCompiler.compile(new Parser(new Scanner(
+                "var a = 1; print a; print (2, \"s\"); print a + 1 < 3 ? a * (a - 1) : nil;"
+                + " print a - 1; print a * (a + 1);").scanTokens()).parse());
+
+        assertEquals(String.join("\n",
+                "0000 LOAD r0, 1.0",
+                "0003 DEFINE a, r0",
+                "0006 PRINT_GET a",
+                "0008 PRINT_K s",
+                "0010 GET r0, a",
+                "0013 ADD_K r0, r0, 1.0",
+                "0017 LESS_K r0, r0, 3.0",
+                "0021 JUMP_IF_FALSE r0, -> 0043",
+                "0024 GET r0, a",
+                "0027 GET r1, a",
+                "0030 LOAD r2, 1.0",
+                "0033 SUBTRACT r1, r1, r2",
+                "0037 MULTIPLY r0, r0, r1",
+                "0041 JUMP -> 0046",
+                "0043 LOAD r0, nil",
+                "0046 PRINT r0",
+                "0048 GET r0, a",
+                "0051 PRINT_BINARY_K SUBTRACT, r0, 1.0",
+                "0055 GET r0, a",
+                "0058 GET r1, a",
+                "0061 ADD_K r1, r1, 1.0",
+                "0065 PRINT_BINARY MULTIPLY, r0, r1",
+                "0069 RETURN",
+                ""), code.disassemble());
+        assertEquals(3, code.registers);
+        assertEquals("<", code.token(17).lexeme);
+        assertEquals("-", code.token(51).lexeme);
+    }
+
+    // ========== Closure Compiler Tests ==========
+
+    @Test
+    @DisplayName("Test closure compiler - Numeric subtrees are unboxed")
+    void testClosureCompiler_NumberNodes() {
+        ClosureCompiler closures = new ClosureCompiler();
+        Parser parser = new Parser(new Scanner("(1 + 2) * -3; a + 1; a - 1; 1 < 2; a ? 1 : 2; a ? 1 : \"s\";").scanTokens());
+        List<ClosureCompiler.Node> nodes = new ArrayList<>();
+        for (Stmt statement : parser.parse()) {
+            nodes.add(((Stmt.Expression) statement).expression.accept(closures));
+        }
+
+        assertTrue(nodes.get(0) instanceof ClosureCompiler.NumberNode);
+        assertEquals(-9.0, ((ClosureCompiler.NumberNode) nodes.get(0)).evalDouble(new Environment()));
+        assertFalse(nodes.get(1) instanceof ClosureCompiler.NumberNode);
+        assertTrue(nodes.get(2) instanceof ClosureCompiler.NumberNode);
+        assertFalse(nodes.get(3) instanceof ClosureCompiler.NumberNode);
+        assertEquals(true, nodes.get(3).eval(new Environment()));
+        assertTrue(nodes.get(4) instanceof ClosureCompiler.NumberNode);
+        assertFalse(nodes.get(5) instanceof ClosureCompiler.NumberNode);
+    }
+
+    // ========== Flag Tests ==========
+
+    @Test
+    @DisplayName("Test flags - Conflicting or unknown flags are rejected")
+    void testFlags_Conflicts() {
+        assertNull(Lox.conflict(false, "", false, false, null, false, "tree"));
+        assertNull(Lox.conflict(true, "threaded", false, false, null, false, "tree"));
+        assertNull(Lox.conflict(false, "", false, true, "cache", true, "tree"));
+        assertNull(Lox.conflict(false, "", true, false, null, true, "tree"));
+        assertNull(Lox.conflict(false, "inline", false, true, null, false, "register"));
+
+        assertNotNull(Lox.conflict(false, "", false, false, null, false, "regster"));
+        assertNotNull(Lox.conflict(false, "thread", false, false, null, false, "tree"));
+        assertNotNull(Lox.conflict(true, "", false, false, null, false, "vm"));
+        assertNotNull(Lox.conflict(true, "", false, false, null, true, "tree"));
+        assertNotNull(Lox.conflict(false, "", false, false, null, true, "closure"));
+        assertNotNull(Lox.conflict(false, "inline", false, false, null, true, "tree"));
+        assertNotNull(Lox.conflict(true, "", false, false, "cache", false, "tree"));
+        assertNotNull(Lox.conflict(false, "", true, false, "cache", false, "tree"));
+        assertNotNull(Lox.conflict(false, "threaded", false, false, "cache", false, "tree"));
+        assertNotNull(Lox.conflict(true, "", true, false, null, false, "tree"));
+        assertNotNull(Lox.conflict(false, "", true, true, null, false, "tree"));
+        assertNotNull(Lox.conflict(false, "inline", true, false, null, false, "tree"));
+
+        for (String property : List.of("backend", "iterative", "stream", "parallel", "share", "cache", "records")) {
+            assertTrue(Lox.USAGE.contains("lox." + property + "="), property);
+        }
+        for (String backend : List.of("tree", "vm", "register", "closure")) {
+            assertTrue(Lox.USAGE.contains(backend), backend);
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.craftinginterpreters.lox;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.io.TempDir;
 
 import static com.craftinginterpreters.lox.TokenType.BANG;
 import static com.craftinginterpreters.lox.TokenType.COLON;
@@ -73,7 +82,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Literal);
@@ -89,7 +98,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Literal);
@@ -105,7 +114,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Literal);
@@ -121,7 +130,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Literal);
@@ -137,7 +146,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Literal);
@@ -157,7 +166,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Grouping);
@@ -177,7 +186,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Grouping);
@@ -196,7 +205,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Unary);
@@ -215,7 +224,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Unary);
@@ -234,7 +243,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Unary);
@@ -255,7 +264,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -276,7 +285,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -295,7 +304,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -314,7 +323,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -333,7 +342,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -357,7 +366,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -381,7 +390,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -406,7 +415,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -428,7 +437,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Comma);
@@ -451,7 +460,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Comma);
@@ -476,7 +485,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Ternary);
@@ -504,7 +513,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Ternary);
@@ -530,7 +539,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -553,7 +562,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         assertNotNull(expr);
         assertTrue(expr instanceof Expr.Binary);
@@ -573,7 +582,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         // Should return null or throw error depending on implementation
         // Adjust based on your error handling strategy
@@ -589,7 +598,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         // Should handle error appropriately
     }
@@ -607,7 +616,7 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         AstPrinter printer = new AstPrinter();
         String result = printer.print(expr);
@@ -630,11 +639,323 @@ class ParserTest {
         );
         
         Parser parser = new Parser(tokens);
-        Expr expr = parser.parse();
+        Expr expr = parser.parseExpression();
         
         AstPrinter printer = new AstPrinter();
         String result = printer.print(expr);
         
         assertEquals("(* (- 123.0) (group 45.67))", result);
     }
+
+    // ========== Streaming Cursor Tests ==========
+
+    @Test
+    @DisplayName("Test parse - Streaming cursor")
+    void testParse_StreamingCursor() {
+        Scanner scanner = new Scanner("print 1 + 2; var a = 3;");
+        Parser parser = new Parser(new StreamingTokenCursor(scanner));
+        List<Stmt> statements = parser.parse();
+
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0) instanceof Stmt.Print);
+        assertTrue(statements.get(1) instanceof Stmt.Var);
+        assertEquals("(+ 1.0 2.0)", new AstPrinter().print(((Stmt.Print) statements.get(0)).expression));
+    }
+
+    @Test
+    @DisplayName("Test parse - Token buffer cursor")
+    void testParse_TokenBufferCursor() {
+        TokenBuffer buffer = new Scanner("print -1 * (2 + 3), \"s\";").scanTokenBuffer();
+        Parser parser = new Parser(buffer.cursor());
+        List<Stmt> statements = parser.parse();
+
+        assertEquals(1, statements.size());
+        assertEquals("(, (* (- 1.0) (group (+ 2.0 3.0))) s)",
+                new AstPrinter().print(((Stmt.Print) statements.get(0)).expression));
+    }
+
+    @Test
+    @DisplayName("Test parse - Mixed precedence and associativity")
+    void testParse_MixedPrecedence() {
+        AstPrinter printer = new AstPrinter();
+
+        assertEquals("(- (- 1.0 2.0) 3.0)",
+                printer.print(new Parser(new Scanner("1 - 2 - 3").scanTokens()).parseExpression()));
+        assertEquals("(, a (ternary b (, c d) (ternary e f (== g (< h (- i (* j (- k))))))))",
+                printer.print(new Parser(new Scanner("a, b ? c, d : e ? f : g == h < i - j * -k").scanTokens()).parseExpression()));
+    }
+
+    @Test
+    @DisplayName("Test parse - Error recovery resumes at the next statement")
+    void testParse_ErrorRecovery() {
+        Parser parser = new Parser(new Scanner("print 1 + ; 2 3 var a = 1; print a;").scanTokens());
+        List<Stmt> statements = parser.parse();
+
+        // "print 1 + ;" stops at its semicolon, "2 3" at the var keyword.
+        assertEquals(4, statements.size());
+        assertEquals(null, statements.get(0));
+        assertEquals(null, statements.get(1));
+        assertTrue(statements.get(2) instanceof Stmt.Var);
+        assertTrue(statements.get(3) instanceof Stmt.Print);
+    }
+
+    // ========== AST Arena Tests ==========
+
+    @Test
+    @DisplayName("Test AST arena - Round trip keeps trees and tokens")
+    void testAstArena_RoundTrip() {
+        List<Stmt> statements = new Parser(new Scanner(
+                "var a = 1;\nprint -a * (2 + a), \"s\";\nvar b;\na == nil ? true : b != 3;").scanTokens()).parse();
+        AstArena arena = AstArena.of(statements);
+        List<Stmt> decoded = arena.toStatements();
+
+        AstPrinter printer = new AstPrinter();
+        assertEquals(statements.size(), decoded.size());
+        assertEquals(printer.print(((Stmt.Print) statements.get(1)).expression),
+                     printer.print(((Stmt.Print) decoded.get(1)).expression));
+        assertEquals(printer.print(((Stmt.Expression) statements.get(3)).expression),
+                     printer.print(((Stmt.Expression) decoded.get(3)).expression));
+        assertEquals(null, ((Stmt.Var) decoded.get(2)).initializer);
+
+        Stmt.Var var = (Stmt.Var) decoded.get(0);
+        assertEquals("a", var.name.lexeme);
+        assertEquals(((Stmt.Var) statements.get(0)).symbol, var.symbol);
+        Expr.Binary product = (Expr.Binary) ((Expr.Comma) ((Stmt.Print) decoded.get(1)).expression).left;
+        assertEquals(STAR, product.operator.type);
+        assertEquals(2, product.operator.line);
+        assertEquals(((Expr.Binary) ((Expr.Comma) ((Stmt.Print) statements.get(1)).expression).left).operator.offset,
+                     product.operator.offset);
+
+        int print = arena.statement(1);
+        assertEquals(AstArena.PRINT, arena.kind(print));
+        assertEquals(AstArena.COMMA, arena.kind(arena.expression(print)));
+        assertEquals(1.0, arena.value(arena.initializer(arena.statement(0))));
+    }
+
+    @Test
+    @DisplayName("Test parse cache - Stored parses load back and bad entries miss")
+    void testParseCache_RoundTrip(@TempDir Path directory) throws IOException {
+        Path script = directory.resolve("script.lox");
+        Files.writeString(script, "var a = 1.5;\nprint \"h\u00e9\" + -a, (true ? nil : false);\nvar b;\n");
+        List<Stmt> statements = new Parser(new Scanner(Files.readString(script)).scanTokens()).parse();
+        ParseCache cache = new ParseCache(directory.resolve("cache"));
+        String key = cache.key(script, StandardCharsets.UTF_8);
+
+        assertNull(cache.load(key));
+        cache.store(key, statements);
+        List<Stmt> loaded = cache.load(key);
+
+        AstPrinter printer = new AstPrinter();
+        assertEquals(statements.size(), loaded.size());
+        assertEquals(printer.print(((Stmt.Print) statements.get(1)).expression),
+                     printer.print(((Stmt.Print) loaded.get(1)).expression));
+        assertEquals(SymbolTable.names.intern("b"), ((Stmt.Var) loaded.get(2)).symbol);
+        assertEquals(key, cache.key(script, StandardCharsets.UTF_8));
+        assertFalse(key.equals(cache.key(script, StandardCharsets.ISO_8859_1)));
+
+        // An entry written for another grammar or layout is a miss.
+        Path entry = directory.resolve("cache").resolve(key + ".ast");
+        byte[] valid = Files.readAllBytes(entry);
+        byte[] otherGrammar = valid.clone();
+        otherGrammar[15] ^= 1;
+        Files.write(entry, otherGrammar);
+        assertNull(cache.load(key));
+        // So is an entry with a good header whose arena is cut short.
+        for (int length = 16; length < valid.length; length++) {
+            Files.write(entry, Arrays.copyOf(valid, length));
+            assertNull(cache.load(key), "truncated to " + length);
+        }
+        Files.write(entry, valid);
+        assertNotNull(cache.load(key));
+    }
+
+    @Test
+    @DisplayName("Test parse cache - Entries with cyclic or forward children miss")
+    void testParseCache_GarbledChildren(@TempDir Path directory) throws IOException {
+        ParseCache cache = new ParseCache(directory);
+        // LITERAL at 0, GROUPING at 2, PRINT at 4, statement 0 is node 4.
+        cache.store("k", new Parser(new Scanner("print (1);").scanTokens()).parse());
+        Path entry = directory.resolve("k.ast");
+        byte[] valid = Files.readAllBytes(entry);
+        int nodes = 16 + 4 + 4 + 4;
+        assertEquals(4, ByteBuffer.wrap(valid).getInt(20));
+        assertEquals(0, ByteBuffer.wrap(valid).getInt(nodes + 4 * 3));
+        assertEquals(2, ByteBuffer.wrap(valid).getInt(nodes + 4 * 5));
+
+        // The grouping as its own child, and the print's child pointing
+        // forward at itself, would each send the rebuild around a cycle.
+        int[][] garbles = {{nodes + 4 * 3, 2}, {nodes + 4 * 5, 4}, {nodes + 4 * 3, 4}, {20, 6}};
+        for (int[] garble : garbles) {
+            byte[] bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(garble[0], garble[1]);
+            Files.write(entry, bytes);
+            assertNull(cache.load("k"), "int at " + garble[0] + " set to " + garble[1]);
+        }
+        // No index in the node array, pointed at any node, gets past read.
+        for (int at = nodes; at < nodes + 4 * 6; at += 4) {
+            for (int value = -1; value <= 6; value++) {
+                byte[] bytes = valid.clone();
+                ByteBuffer.wrap(bytes).putInt(at, value);
+                Files.write(entry, bytes);
+                cache.load("k");
+            }
+        }
+        Files.write(entry, valid);
+        assertNotNull(cache.load("k"));
+    }
+
+    @Test
+    @DisplayName("Test parse cache - A failed store leaves no temporary file")
+    void testParseCache_FailedStore(@TempDir Path directory) throws IOException {
+        List<Stmt> statements = new Parser(new Scanner("print 1;").scanTokens()).parse();
+        ParseCache cache = new ParseCache(directory);
+        // A non-empty directory where the entry goes makes the move fail.
+        Files.createDirectories(directory.resolve("k.ast"));
+        Files.writeString(directory.resolve("k.ast").resolve("x"), "");
+
+        cache.store("k", statements);
+
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(directory.resolve("k.ast")), files.toList());
+        }
+        assertNull(cache.load("k"));
+    }
+
+    @Test
+    @DisplayName("Test parse - Iterative mode builds the same trees")
+    void testParse_IterativeMatchesRecursive() {
+        AstPrinter printer = new AstPrinter();
+        String[] sources = {
+            "1 - 2 - 3", "a, b ? c, d : e ? f : g == h < i - j * -k",
+            "-(1 + 2) * !(3 / 4)", "((a)), (b ? (c) : d)", "1 ? 2 ? 3 : 4 : 5 ? 6 : 7"
+        };
+        for (String source : sources) {
+            Expr expected = new Parser(new Scanner(source).scanTokens()).parseExpression();
+            Expr actual = new Parser(new ListTokenCursor(new Scanner(source).scanTokens()), true).parseExpression();
+            assertEquals(printer.print(expected), printer.print(actual), source);
+        }
+        assertNull(new Parser(new ListTokenCursor(new Scanner("(1 + 2").scanTokens()), true).parseExpression());
+        assertNull(new Parser(new ListTokenCursor(new Scanner("1 ? 2").scanTokens()), true).parseExpression());
+    }
+
+    // ========== Statement Streaming Tests ==========
+
+    @Test
+    @DisplayName("Test parse - Statement iterator and pipeline match parse()")
+    void testParse_StatementStreams() {
+        String source = "var a = 1;\nprint a + ;\nprint a, 2;\n".repeat(100);
+        AstPrinter printer = new AstPrinter();
+        List<Stmt> expected = new Parser(new Scanner(source).scanTokens()).parse();
+
+        List<Iterator<Stmt>> streams = Arrays.asList(
+                new Parser(new StreamingTokenCursor(new Scanner(source))).statements(),
+                new StatementPipeline(new Parser(new StreamingTokenCursor(new Scanner(source)))));
+        for (Iterator<Stmt> stream : streams) {
+            for (Stmt statement : expected) {
+                assertTrue(stream.hasNext());
+                Stmt actual = stream.next();
+                if (statement == null) {
+                    assertNull(actual);
+                } else if (statement instanceof Stmt.Print print) {
+                    assertEquals(printer.print(print.expression), printer.print(((Stmt.Print) actual).expression));
+                } else {
+                    assertEquals(((Stmt.Var) statement).symbol, ((Stmt.Var) actual).symbol);
+                }
+            }
+            assertFalse(stream.hasNext());
+        }
+    }
+
+    // ========== Parallel Parser Tests ==========
+
+    @Test
+    @DisplayName("Test parallel parser - Matches a single parser, errors included")
+    void testParallelParser_MatchesSequential() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            source.append("var v").append(i % 50).append(" = ").append(i).append(" * (2 + x);\n");
+            if (i % 997 == 0) {
+                source.append("print 1 + ;\n(2 3 var w = 1;\nprint (4;\n");
+            }
+        }
+        List<Token> tokens = new Scanner(source.toString()).scanTokens();
+        List<Stmt> expected = new Parser(tokens).parse();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Stmt> statements;
+        try {
+            statements = new ParallelParser(tokens, pool).parse();
+        } finally {
+            pool.shutdown();
+        }
+
+        AstPrinter printer = new AstPrinter();
+        assertEquals(expected.size(), statements.size());
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i) == null) {
+                assertNull(statements.get(i));
+                continue;
+            }
+            Stmt.Var var = (Stmt.Var) expected.get(i);
+            Stmt.Var actual = (Stmt.Var) statements.get(i);
+            assertEquals(var.name.offset, actual.name.offset);
+            assertEquals(printer.print(var.initializer), printer.print(actual.initializer));
+        }
+    }
+
+    // ========== Shared Node Tests ==========
+
+    private List<Expr> printedExpressions(String source, ExprFactory nodes) {
+        Parser parser = new Parser(new Scanner(source).scanTokens());
+        parser.buildWith(nodes);
+        return parser.parse().stream().map(statement -> ((Stmt.Print) statement).expression).toList();
+    }
+
+    @Test
+    @DisplayName("Test shared nodes - Repeated constant subtrees are built once")
+    void testSharedNodes_HashConsing() {
+        String source = "print 1 + 2; print (1 + 2) * x; print 1 + 2; print x + 1; print x + 1; print 1 / 0; print 1 / 0;";
+        List<Expr> plain = printedExpressions(source, ExprFactory.plain);
+        List<Expr> shared = printedExpressions(source, ExprFactory.sharing(false));
+
+        AstPrinter printer = new AstPrinter();
+        for (int i = 0; i < plain.size(); i++) {
+            assertEquals(printer.print(plain.get(i)), printer.print(shared.get(i)));
+        }
+        Expr.Binary scaled = (Expr.Binary) shared.get(1);
+        assertTrue(shared.get(0) == shared.get(2));
+        assertTrue(shared.get(0) == ((Expr.Grouping) scaled.left).expression);
+        // Anything that can fail keeps its own tokens for error locations.
+        assertFalse(shared.get(3) == shared.get(4));
+        assertFalse(shared.get(5) == shared.get(6));
+        assertTrue(((Expr.Binary) shared.get(3)).right == ((Expr.Binary) shared.get(5)).left);
+    }
+
+    @Test
+    @DisplayName("Test shared nodes - Memoized constant subtrees become literals")
+    void testSharedNodes_Memoized() {
+        List<Expr> shared = printedExpressions("print (1 + 2) * 3; print 9; print \"a\" + 1 == \"a1\"; print -\"s\";",
+                                               ExprFactory.sharing(true));
+
+        assertTrue(shared.get(0) instanceof Expr.Literal);
+        assertTrue(shared.get(0) == shared.get(1));
+        assertEquals(true, ((Expr.Literal) shared.get(2)).value);
+        assertTrue(shared.get(3) instanceof Expr.Unary);
+    }
+
+    @Test
+    @DisplayName("Test shared nodes - Sharing is bounded")
+    void testSharedNodes_Bounded() {
+        StringBuilder source = new StringBuilder("print 0.5; print 0.5;");
+        for (int i = 0; i < ExprFactory.MAX_NODES; i++) {
+            source.append("print ").append(i).append(';');
+        }
+        source.append("print 0.5; print 0.5;");
+        List<Expr> shared = printedExpressions(source.toString(), ExprFactory.sharing(false));
+
+        int last = shared.size() - 1;
+        assertTrue(shared.get(0) == shared.get(1));
+        assertTrue(shared.get(last - 1) == shared.get(last));
+        // Forgotten when the factory filled up, so built again.
+        assertFalse(shared.get(0) == shared.get(last));
+    }
 }
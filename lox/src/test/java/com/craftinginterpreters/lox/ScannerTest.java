@@ -1,14 +1,24 @@
 package com.craftinginterpreters.lox;
 
+import java.io.FilterReader;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
@@ -56,66 +66,53 @@ class ScannerTest {
         assertTrue((Boolean) isAtEndMethod.invoke(scanner));
     }
 
+    // The DFA table classifies characters now, so these check the classes
+    // through the token a character starts or continues.
+    private TokenType firstType(String source) {
+        return new Scanner(source).scanTokens().get(0).type;
+    }
+
     @Test
-    @DisplayName("Test isDigit() - Valid digits")
-    void testIsDigit_ValidDigits() throws Exception {
-        Scanner scanner = new Scanner("");
-        Method isDigitMethod = Scanner.class.getDeclaredMethod("isDigit", char.class);
-        isDigitMethod.setAccessible(true);
-        
-        assertTrue((Boolean) isDigitMethod.invoke(scanner, '0'));
-        assertTrue((Boolean) isDigitMethod.invoke(scanner, '5'));
-        assertTrue((Boolean) isDigitMethod.invoke(scanner, '9'));
+    @DisplayName("Test digits - Valid digits start a number")
+    void testIsDigit_ValidDigits() {
+        assertEquals(NUMBER, firstType("0"));
+        assertEquals(NUMBER, firstType("5"));
+        assertEquals(NUMBER, firstType("9"));
     }
 
     @Test
-    @DisplayName("Test isDigit() - Invalid characters")
-    void testIsDigit_InvalidCharacters() throws Exception {
-        Scanner scanner = new Scanner("");
-        Method isDigitMethod = Scanner.class.getDeclaredMethod("isDigit", char.class);
-        isDigitMethod.setAccessible(true);
-        
-        assertFalse((Boolean) isDigitMethod.invoke(scanner, 'a'));
-        assertFalse((Boolean) isDigitMethod.invoke(scanner, 'Z'));
-        assertFalse((Boolean) isDigitMethod.invoke(scanner, ' '));
+    @DisplayName("Test digits - Other characters don't start a number")
+    void testIsDigit_InvalidCharacters() {
+        assertNotEquals(NUMBER, firstType("a"));
+        assertNotEquals(NUMBER, firstType("Z"));
+        assertNotEquals(NUMBER, firstType(" "));
     }
 
     @Test
-    @DisplayName("Test isAlpha() - Valid characters")
-    void testIsAlpha_ValidCharacters() throws Exception {
-        Scanner scanner = new Scanner("");
-        Method isAlphaMethod = Scanner.class.getDeclaredMethod("isAlpha", char.class);
-        isAlphaMethod.setAccessible(true);
-        
-        assertTrue((Boolean) isAlphaMethod.invoke(scanner, 'a'));
-        assertTrue((Boolean) isAlphaMethod.invoke(scanner, 'Z'));
-        assertTrue((Boolean) isAlphaMethod.invoke(scanner, '_'));
+    @DisplayName("Test alpha - Letters and underscore start an identifier")
+    void testIsAlpha_ValidCharacters() {
+        assertEquals(IDENTIFIER, firstType("a"));
+        assertEquals(IDENTIFIER, firstType("Z"));
+        assertEquals(IDENTIFIER, firstType("_"));
     }
 
     @Test
-    @DisplayName("Test isAlpha() - Invalid characters")
-    void testIsAlpha_InvalidCharacters() throws Exception {
-        Scanner scanner = new Scanner("");
-        Method isAlphaMethod = Scanner.class.getDeclaredMethod("isAlpha", char.class);
-        isAlphaMethod.setAccessible(true);
-        
-        assertFalse((Boolean) isAlphaMethod.invoke(scanner, '0'));
-        assertFalse((Boolean) isAlphaMethod.invoke(scanner, '9'));
-        assertFalse((Boolean) isAlphaMethod.invoke(scanner, ' '));
+    @DisplayName("Test alpha - Digits and blanks don't start an identifier")
+    void testIsAlpha_InvalidCharacters() {
+        assertNotEquals(IDENTIFIER, firstType("0"));
+        assertNotEquals(IDENTIFIER, firstType("9"));
+        assertNotEquals(IDENTIFIER, firstType(" "));
     }
 
     @Test
-    @DisplayName("Test isAlphaNumeric() - Valid characters")
-    void testIsAlphaNumeric_ValidCharacters() throws Exception {
-        Scanner scanner = new Scanner("");
-        Method isAlphaNumericMethod = Scanner.class.getDeclaredMethod("isAlphaNumeric", char.class);
-        isAlphaNumericMethod.setAccessible(true);
-        
-        assertTrue((Boolean) isAlphaNumericMethod.invoke(scanner, 'a'));
-        assertTrue((Boolean) isAlphaNumericMethod.invoke(scanner, 'Z'));
-        assertTrue((Boolean) isAlphaNumericMethod.invoke(scanner, '0'));
-        assertTrue((Boolean) isAlphaNumericMethod.invoke(scanner, '9'));
-        assertTrue((Boolean) isAlphaNumericMethod.invoke(scanner, '_'));
+    @DisplayName("Test alphanumeric - Letters, digits and underscore continue an identifier")
+    void testIsAlphaNumeric_ValidCharacters() {
+        for (char c : new char[] {'a', 'Z', '0', '9', '_'}) {
+            List<Token> tokens = new Scanner("x" + c).scanTokens();
+            assertEquals(2, tokens.size());
+            assertEquals(IDENTIFIER, tokens.get(0).type);
+            assertEquals("x" + c, tokens.get(0).lexeme);
+        }
     }
 
     // ========== Single Character Token Tests ==========
@@ -731,6 +728,19 @@ class ScannerTest {
         assertEquals(STAR, tokens.get(2).type);
     }
 
+    @Test
+    @DisplayName("Test unexpected character - Non-ASCII between tokens")
+    void testUnexpectedCharacter_NonAscii() {
+        Lox.hadError = false;
+        Scanner scanner = new Scanner("aéb");
+        List<Token> tokens = scanner.scanTokens();
+
+        assertEquals(3, tokens.size());
+        assertEquals("a", tokens.get(0).lexeme);
+        assertEquals("b", tokens.get(1).lexeme);
+        assertTrue(Lox.hadError);
+    }
+
     // ========== 数字边界测试 ==========
 
     @Test
@@ -1020,4 +1030,376 @@ class ScannerTest {
         assertEquals(4, tokens.get(0).line);
     }
 
-}
\ No newline at end of file
+    // ========== Streaming Tests ==========
+
+    @Test
+    @DisplayName("Test streaming - Reader matches String")
+    void testStreaming_ReaderMatchesString() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            source.append("var x").append(i).append(" = ").append(i).append(".5; // c\n");
+        }
+        source.append("\"").append("s".repeat(20000)).append("\";");
+
+        List<Token> expected = new Scanner(source.toString()).scanTokens();
+        Scanner scanner = new Scanner(new StringReader(source.toString()));
+
+        for (Token want : expected) {
+            Token got = scanner.nextToken();
+            assertEquals(want.type, got.type);
+            assertEquals(want.lexeme, got.lexeme);
+            assertEquals(want.literal, got.literal);
+            assertEquals(want.line, got.line);
+        }
+        assertEquals(EOF, scanner.nextToken().type);
+    }
+
+    @Test
+    @DisplayName("Test streaming - Long comments don't grow the window")
+    void testStreaming_LongCommentsKeepWindow() {
+        String source = "a // " + "c".repeat(100_000) + "\nb /* " + "c\n".repeat(50_000) + " */ c";
+        int[] widest = {0};
+        Reader reader = new FilterReader(new StringReader(source)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                widest[0] = Math.max(widest[0], buffer.length);
+                return super.read(buffer, offset, length);
+            }
+        };
+        List<Token> tokens = new Scanner(reader).scanTokens();
+
+        assertEquals("a", tokens.get(0).lexeme);
+        assertEquals("b", tokens.get(1).lexeme);
+        Token c = tokens.get(tokens.size() - 2);
+        assertEquals("c", c.lexeme);
+        assertEquals(50_002, c.line);
+        // The window only ever grows to fit a token, and no token here is long.
+        assertEquals(8192, widest[0]);
+    }
+
+    @Test
+    @DisplayName("Test streaming - Two character token across buffer boundary")
+    void testStreaming_TwoCharacterTokenAcrossBoundary() {
+        String source = " ".repeat(8191) + "!=";
+        Scanner scanner = new Scanner(new StringReader(source));
+
+        assertEquals(BANG_EQUAL, scanner.nextToken().type);
+        assertEquals(EOF, scanner.nextToken().type);
+    }
+
+    @Test
+    @DisplayName("Test mapped scanner - Bytes match String")
+    void testMappedScanner_BytesMatchString() {
+        String source = "var caf\u00e9 = \"h\u00e9llo \u4e16\u754c \ud83d\ude00\"; // \u00fcber\n" +
+                        "print 12.5 >= 3 ? \"a\" : nil;\n" +
+                        "/* \u00e9 */ x != y;";
+
+        Scanner chars = new Scanner(source);
+        List<Token> expected = chars.scanTokens();
+        Scanner scanner = new MappedScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
+        List<Token> tokens = scanner.scanTokens();
+
+        assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).type, tokens.get(i).type);
+            assertEquals(expected.get(i).lexeme, tokens.get(i).lexeme);
+            assertEquals(expected.get(i).literal, tokens.get(i).literal);
+            assertEquals(expected.get(i).line, tokens.get(i).line);
+            // Offsets count bytes here, but columns count chars on both.
+            assertEquals(chars.column(expected.get(i).offset, expected.get(i).line),
+                    scanner.column(tokens.get(i).offset, tokens.get(i).line), expected.get(i).lexeme);
+        }
+    }
+
+    @Test
+    @DisplayName("Test mapped scanner - Non-ASCII literals intern once")
+    void testMappedScanner_NonAsciiInterning() {
+        String source = "\"h\u00e9llo\" + \"h\u00e9llo\" + \"\u4e16\" + \"\u4e16\";";
+        List<Token> tokens = new MappedScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8))).scanTokens();
+
+        assertEquals("h\u00e9llo", tokens.get(0).literal);
+        assertTrue(tokens.get(0).literal == tokens.get(2).literal);
+        assertEquals("\u4e16", tokens.get(4).literal);
+        assertTrue(tokens.get(4).literal == tokens.get(6).literal);
+    }
+
+    @Test
+    @DisplayName("Test keywords - Prefixes and extensions are identifiers")
+    void testKeywords_PrefixesAndExtensions() {
+        Scanner scanner = new Scanner("an andy fals falsey whiles th _if For");
+        List<Token> tokens = scanner.scanTokens();
+
+        assertEquals(9, tokens.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(IDENTIFIER, tokens.get(i).type);
+            assertEquals(tokens.get(i).lexeme, tokens.get(i).literal);
+        }
+        assertEquals("falsey", tokens.get(3).lexeme);
+    }
+
+    @Test
+    @DisplayName("Test identifiers - Repeated names share one symbol")
+    void testIdentifiers_RepeatedNamesShareSymbol() {
+        List<Token> first = new Scanner("count + count").scanTokens();
+        List<Token> second = new Scanner("count").scanTokens();
+
+        assertTrue(first.get(0).symbol >= 0);
+        assertEquals(first.get(0).symbol, first.get(2).symbol);
+        assertEquals(first.get(0).symbol, second.get(0).symbol);
+        assertTrue(first.get(0).lexeme == second.get(0).lexeme);
+        assertEquals(-1, first.get(1).symbol);
+    }
+
+    @Test
+    @DisplayName("Test strings - Repeated literals share one String")
+    void testStrings_RepeatedLiteralsShareString() {
+        StringBuilder source = new StringBuilder("\"lox\" \"lox\"");
+        for (int i = 0; i < 3000; i++) {
+            source.append(" \"s").append(i).append('"');
+        }
+        source.append(" \"lox\"");
+
+        List<Token> tokens = new Scanner(source.toString()).scanTokens();
+
+        assertTrue(tokens.get(0).literal == tokens.get(1).literal);
+        // The table has been emptied since, so only the text is the same.
+        assertEquals("lox", tokens.get(tokens.size() - 2).literal);
+        assertEquals("s2999", tokens.get(tokens.size() - 3).literal);
+    }
+
+    @Test
+    @DisplayName("Test numbers - Matches Double.valueOf")
+    void testNumbers_MatchesDoubleValueOf() {
+        Random random = new Random(42);
+        StringBuilder source = new StringBuilder(
+                "0 0.5 007 0.1 0.3 9007199254740993 123456789012345.6 " +
+                "0.0000000000000000000000001 1.7976931348623157 ");
+        for (int i = 0; i < 2000; i++) {
+            source.append(random.nextInt(1 << (i % 31))).append('.')
+                  .append(String.format("%019d", Math.abs(random.nextLong() % 1000000000000000000L)), 0, 1 + i % 19)
+                  .append(' ');
+        }
+
+        List<Token> tokens = new Scanner(source.toString()).scanTokens();
+
+        for (Token token : tokens) {
+            if (token.type == NUMBER) {
+                assertEquals(Double.valueOf(token.lexeme), token.literal, token.lexeme);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test line index - Lines and columns from offsets")
+    void testLineIndex_LinesAndColumnsFromOffsets() {
+        String source = "var a;\n/* two\nlines */\n  \"s\ns\" b;";
+        Scanner scanner = new Scanner(source);
+        List<Token> tokens = scanner.scanTokens();
+        LineIndex lines = scanner.lines();
+
+        for (Token token : tokens) {
+            // A string's line is where it ends; its offset is where it starts.
+            if (token.type != STRING) {
+                assertEquals(token.line, lines.line(token.offset));
+            }
+        }
+        Token b = tokens.get(tokens.size() - 3);
+        assertEquals("b", b.lexeme);
+        assertEquals(5, b.line);
+        assertEquals(4, lines.column(b.offset));
+
+        Scanner streaming = new Scanner(new StringReader(source));
+        streaming.scanTokens();
+        assertEquals(4, streaming.lines().column(b.offset));
+    }
+
+    @Test
+    @DisplayName("Test line index - Multi-line string is on its last line")
+    void testLineIndex_MultilineString() {
+        String source = "print\n  \"a\nb\" + 1;";
+        List<Token> tokens = new Scanner(source).scanTokens();
+        Scanner scanner = new Scanner(source);
+        TokenBuffer buffer = scanner.scanTokenBuffer();
+
+        Token string = tokens.get(1);
+        assertEquals(3, string.line);
+        assertEquals(3, buffer.line(1));
+        // It starts on line 2, so it has no column on line 3.
+        assertEquals(3, scanner.lines().column(string.offset));
+        assertEquals(0, scanner.lines().column(string.offset, string.line));
+        assertEquals(4, scanner.lines().column(tokens.get(2).offset, tokens.get(2).line));
+    }
+
+    @Test
+    @DisplayName("Test line index - A Reader's index keeps a window of lines")
+    void testLineIndex_ReaderWindow() {
+        LineIndex lines = new LineIndex(64);
+        for (int line = 1; line < 1000; line++) {
+            lines.add(line * 10);
+        }
+
+        assertEquals(1000, lines.line(9995));
+        assertEquals(6, lines.column(9995));
+        assertEquals(980, lines.line(9795));
+        assertEquals(0, lines.line(5));
+        assertEquals(0, lines.column(5));
+    }
+
+    // ========== Token Buffer Tests ==========
+
+    @Test
+    @DisplayName("Test token buffer - Matches token list")
+    void testTokenBuffer_MatchesTokenList() {
+        String source = "var name = \"lox\";\nprint (1.25 + 2) * 3 >= 4 ? name : nil;";
+
+        List<Token> expected = new Scanner(source).scanTokens();
+        TokenBuffer buffer = new Scanner(source).scanTokenBuffer();
+
+        assertEquals(expected.size(), buffer.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).type, buffer.type(i));
+            assertEquals(expected.get(i).lexeme, buffer.lexeme(i));
+            assertEquals(expected.get(i).literal, buffer.literal(i));
+            assertEquals(expected.get(i).line, buffer.line(i));
+        }
+        assertEquals(1.25, buffer.number(7));
+    }
+
+    // ========== Parallel Scanning Tests ==========
+
+    @Test
+    @DisplayName("Test parallel scanning - Matches sequential scan")
+    void testParallelScanning_MatchesSequential() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            source.append("var v").append(i % 97).append(" = ").append(i).append(".25; // \"not a string\n");
+            if (i % 13 == 0) {
+                source.append("print \"multi\nline // not a comment\n\";\n");
+            }
+            if (i % 29 == 0) {
+                source.append("/* block\n \" */ x;\n");
+            }
+        }
+
+        List<Token> expected = new Scanner(source.toString()).scanTokens();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Token> tokens;
+        try {
+            tokens = new ParallelScanner(source.toString(), pool).scanTokens();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).type, tokens.get(i).type);
+            assertEquals(expected.get(i).lexeme, tokens.get(i).lexeme);
+            assertEquals(expected.get(i).literal, tokens.get(i).literal);
+            assertEquals(expected.get(i).line, tokens.get(i).line);
+            assertEquals(expected.get(i).symbol, tokens.get(i).symbol);
+        }
+    }
+
+    // ========== Char Search Tests ==========
+
+    @Test
+    @DisplayName("Test char search - Scalar search finds the first match")
+    void testCharSearch_Scalar() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            char[] chars = randomChars(random);
+            int from = chars.length == 0 ? 0 : random.nextInt(chars.length);
+            int quote = new String(chars).indexOf('"', from);
+            int newline = new String(chars).indexOf('\n', from);
+            int expected = quote < 0 ? (newline < 0 ? chars.length : newline)
+                    : newline < 0 ? quote : Math.min(quote, newline);
+            assertEquals(expected, CharSearch.scalarIndexOf(chars, from, chars.length, '"', '\n'));
+            int blank = from;
+            while (blank < chars.length && (chars[blank] == ' ' || chars[blank] == '\t')) {
+                blank++;
+            }
+            assertEquals(blank, CharSearch.scalarSkipBlanks(chars, from, chars.length));
+        }
+    }
+
+    @Test
+    @DisplayName("Test char search - Vector and scalar agree")
+    void testCharSearch_VectorAndScalarAgree() {
+        // Only with mvn -Pvector, which builds and enables the vector search.
+        assumeTrue(CharSearch.vector != null);
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            char[] chars = randomChars(random);
+            int from = chars.length == 0 ? 0 : random.nextInt(chars.length);
+            assertEquals(CharSearch.scalarIndexOf(chars, from, chars.length, '"', '\n'),
+                         CharSearch.vector.indexOf(chars, from, chars.length, '"', '\n'));
+            assertEquals(CharSearch.scalarSkipBlanks(chars, from, chars.length),
+                         CharSearch.vector.skipBlanks(chars, from, chars.length));
+        }
+    }
+
+    // Mostly blanks and letters so hits land at varied offsets.
+    private static char[] randomChars(Random random) {
+        char[] alphabet = {' ', '\t', 'a', '"', '\n', '/', '\u4e16'};
+        char[] chars = new char[random.nextInt(300)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = alphabet[random.nextInt(100) < 97 ? random.nextInt(3) : random.nextInt(alphabet.length)];
+        }
+        return chars;
+    }
+
+    // ========== Incremental Scanner Tests ==========
+
+    @Test
+    @DisplayName("Test incremental scanner - Edits match a full rescan")
+    void testIncrementalScanner_EditsMatchFullRescan() {
+        Random random = new Random(11);
+        String[] fragments = {"a", "1", ".5", " ", "\n", "\"", "//", "/*", "*/", "var x = 12.5;", "!=", "=", "or", "print"};
+        IncrementalScanner scanner = new IncrementalScanner("var a = 1;\nprint a + \"s\";\n/* c */ b = 2.5;\n");
+        for (int round = 0; round < 300; round++) {
+            String source = scanner.source();
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(4, source.length() - offset) + 1);
+            String inserted = random.nextBoolean() ? fragments[random.nextInt(fragments.length)] : "";
+
+            List<Token> tokens = scanner.edit(offset, removed, inserted);
+            List<Token> expected = new Scanner(scanner.source()).scanTokens();
+
+            assertEquals(expected.size(), tokens.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).type, tokens.get(i).type);
+                assertEquals(expected.get(i).lexeme, tokens.get(i).lexeme);
+                assertEquals(expected.get(i).literal, tokens.get(i).literal);
+                assertEquals(expected.get(i).line, tokens.get(i).line);
+                assertEquals(expected.get(i).offset, tokens.get(i).offset);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test incremental scanner - Edits far apart and larger than the gap")
+    void testIncrementalScanner_GapMoves() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("var v").append(i).append(" = ").append(i).append(" + \"s\";\n");
+        }
+        StringBuilder block = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            block.append("print w").append(i).append(";\n");
+        }
+        IncrementalScanner scanner = new IncrementalScanner(text.toString());
+        int[] offsets = {text.length() - 3, 5, text.length() / 2, 0, text.length() / 3};
+        for (int offset : offsets) {
+            scanner.edit(offset, 1, "1.5 ");
+            List<Token> tokens = scanner.edit(offset, 0, block.toString());
+            List<Token> expected = new Scanner(scanner.source()).scanTokens();
+
+            assertEquals(expected.size(), tokens.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).lexeme, tokens.get(i).lexeme);
+                assertEquals(expected.get(i).line, tokens.get(i).line);
+                assertEquals(expected.get(i).offset, tokens.get(i).offset);
+            }
+        }
+    }
+}